@@ -21,6 +21,11 @@ android {
         }
     }
 
+    androidResources {
+        // Preflop equity tables are memory-mapped directly from the APK
+        noCompress += "bin"
+    }
+
     compileOptions {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
@@ -28,6 +33,7 @@ android {
 }
 
 dependencies {
+    implementation(project(":core"))
     implementation("androidx.appcompat:appcompat:1.6.1")
     implementation("androidx.core:core:1.12.0")
     implementation("androidx.constraintlayout:constraintlayout:2.1.4")
@@ -35,4 +41,5 @@ dependencies {
     implementation("com.google.android.material:material:1.12.0")
     implementation("com.google.android.gms:play-services-mlkit-text-recognition:18.0.0")
     implementation(libs.vision.common)
+    testImplementation("junit:junit:4.13.2")
 }
\ No newline at end of file
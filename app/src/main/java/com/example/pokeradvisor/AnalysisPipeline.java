@@ -0,0 +1,370 @@
+package com.example.pokeradvisor;
+
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import com.example.pokeradvisor.game.HandState;
+import com.google.android.gms.tasks.Tasks;
+import com.google.mlkit.vision.common.InputImage;
+import com.google.mlkit.vision.text.Text;
+import com.google.mlkit.vision.text.TextRecognition;
+import com.google.mlkit.vision.text.TextRecognizer;
+import com.google.mlkit.vision.text.latin.TextRecognizerOptions;
+
+import org.opencv.android.Utils;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Pattern;
+
+/**
+ * Recognizes cards on its own thread so the camera thread only hands frames over.
+ * Frames wait in a single slot: a newer frame replaces one that has not been picked up yet, so
+ * at most one frame is queued and one is being analyzed. Cards are first located with
+ * {@link CardDetector} and read from their corners with a {@link CornerClassifier}; only when that
+ * finds nothing is the whole frame sent to ML Kit, through one long-lived recognizer and a small
+ * pool of reused bitmaps. OCR is awaited before the next frame is taken, so OCR tasks never pile up.
+ * With a low-resolution analysis stream, cards are located on its frames and only the regions
+ * around them are handed over from the full-resolution frame.
+ * Gray frames carry no color, so suits are told apart by shape alone; the chroma planes are not
+ * read, not even around the cards.
+ */
+public final class AnalysisPipeline {
+
+    private static final String TAG = "PokerAdvisor";
+    // Also in the benchmarks module's CardParsingBenchmark; keep the two in sync
+    private static final Pattern CARD_TEXT = Pattern.compile("^[AKQJ10][hscd]$|^[2-9][hscd]$");
+    private static final int BITMAP_POOL_SIZE = 2;
+    // Share of the nearest training samples that must agree on a rank or suit
+    private static final double MIN_AGREEMENT = 0.6;
+    // ML Kit reports no per-block confidence, so OCR reads count as moderately sure
+    private static final float OCR_CONFIDENCE = 0.5f;
+    private static final float TRACKED_CONFIDENCE = 1.0f;
+    // Border kept around a card region, as a fraction of the region's size
+    private static final double REGION_MARGIN = 0.05;
+
+    // Full-resolution region around a card located on the analysis stream
+    private static final class Region {
+        final Mat image;
+        // Card corners within the image, and in the analysis frame
+        Point[] corners;
+        Point[] frameCorners;
+
+        Region(Mat image) {
+            this.image = image;
+        }
+    }
+
+    public interface Listener {
+        /**
+         * Called on the analysis thread with the cards of a frame and the confidence (0-1) of each,
+         * in the same order. Cards located by the detector are also given with their outlines, for
+         * tracking, along with the number the frame was submitted with.
+         */
+        void onCards(HandState hand, float[] confidences, List<CardTracker.Track> tracks, long frameNumber);
+
+        void onError(String message);
+    }
+
+    private final TemplateBank templateBank;
+    private final Listener listener;
+    private final CardDetector cardDetector = new CardDetector();
+    // Locates cards on the analysis stream; used from the submitting thread only
+    private final CardDetector locator = new CardDetector();
+    private final TextRecognizer recognizer = TextRecognition.getClient(TextRecognizerOptions.DEFAULT_OPTIONS);
+    private final ArrayDeque<Bitmap> bitmapPool = new ArrayDeque<>(BITMAP_POOL_SIZE);
+    private final Thread thread;
+    // Taken from the template bank once it is ready; owned and shared by the bank
+    private CornerClassifier rankClassifier;
+    private CornerClassifier suitClassifier;
+
+    private final MatArena arena = new MatArena("analysis");
+    // Frame slot, guarded by this
+    private Mat pending = arena.mat();
+    private Mat working = arena.mat();
+    private Region[] pendingRegions = newRegions();
+    private Region[] workingRegions = newRegions();
+    // Number of pending regions, or -1 if cards are to be detected on the frame itself
+    private int pendingRegionCount = -1;
+    private List<CardTracker.Track> pendingTracks = Collections.emptyList();
+    private long pendingFrameNumber;
+    // Rectified card read from a region; used on the analysis thread only
+    private final Mat rectified = arena.mat();
+    private boolean hasPending;
+    private boolean running = true;
+
+    public AnalysisPipeline(TemplateBank templateBank, Listener listener) {
+        this.templateBank = templateBank;
+        this.listener = listener;
+        thread = new Thread(this::run, "CardAnalysis");
+        thread.start();
+    }
+
+    /**
+     * Copies a frame into the slot, replacing a frame that is still waiting. The frame is either the
+     * camera's gray (Y) plane, which costs one byte per pixel to copy and needs no color conversion
+     * anywhere in recognition, or an RGBA frame. The gray plane wraps the camera image without a
+     * copy only while the frame is not rotated; otherwise the camera view rotates it into a new
+     * buffer, a full-resolution copy, each time it is fetched.
+     */
+    public synchronized void submit(Mat frame) {
+        submit(frame, Collections.emptyList(), 0);
+    }
+
+    /**
+     * Submits a frame together with the cards tracked in it. Detected cards inside a tracked
+     * outline keep their identity and are not recognized again.
+     * @param frameNumber reported back with the cards, see {@link CardTracker#keyFrame}
+     */
+    public synchronized void submit(Mat frame, List<CardTracker.Track> tracks, long frameNumber) {
+        if (!running) {
+            return;
+        }
+        frame.copyTo(pending);
+        pendingRegionCount = -1;
+        pendingTracks = tracks;
+        pendingFrameNumber = frameNumber;
+        hasPending = true;
+        notifyAll();
+    }
+
+    /**
+     * Submits a frame of the camera's low-resolution analysis stream with the full-resolution gray
+     * frame taken alongside it. Cards are located on the small frame right away, on the calling
+     * thread, and only the regions around them are copied out of the full frame, where the
+     * analysis thread reads their corners. Tracks and reported outlines are in small frame
+     * coordinates.
+     */
+    public synchronized void submit(Mat small, Mat full, List<CardTracker.Track> tracks, long frameNumber) {
+        if (!running) {
+            return;
+        }
+        int count = locator.locate(small);
+        double scaleX = (double) full.cols() / small.cols();
+        double scaleY = (double) full.rows() / small.rows();
+        for (int i = 0; i < count; i++) {
+            Point[] frameCorners = locator.corners(i);
+            double left = Double.MAX_VALUE;
+            double top = Double.MAX_VALUE;
+            double right = 0;
+            double bottom = 0;
+            for (Point corner : frameCorners) {
+                left = Math.min(left, corner.x * scaleX);
+                top = Math.min(top, corner.y * scaleY);
+                right = Math.max(right, corner.x * scaleX);
+                bottom = Math.max(bottom, corner.y * scaleY);
+            }
+            double marginX = (right - left) * REGION_MARGIN;
+            double marginY = (bottom - top) * REGION_MARGIN;
+            int x = (int) Math.max(0, left - marginX);
+            int y = (int) Math.max(0, top - marginY);
+            Rect bounds = new Rect(x, y, (int) Math.min(full.cols(), Math.ceil(right + marginX)) - x,
+                    (int) Math.min(full.rows(), Math.ceil(bottom + marginY)) - y);
+
+            Region region = pendingRegions[i];
+            try (MatArena scratch = new MatArena("analysis")) {
+                scratch.track(full.submat(bounds)).copyTo(region.image);
+            }
+            region.corners = new Point[frameCorners.length];
+            for (int k = 0; k < frameCorners.length; k++) {
+                region.corners[k] = new Point(frameCorners[k].x * scaleX - x, frameCorners[k].y * scaleY - y);
+            }
+            region.frameCorners = frameCorners;
+        }
+        small.copyTo(pending);
+        pendingRegionCount = count;
+        pendingTracks = tracks;
+        pendingFrameNumber = frameNumber;
+        hasPending = true;
+        notifyAll();
+    }
+
+    /**
+     * Stops the analysis thread and frees its buffers, the recognizer and the pooled bitmaps.
+     */
+    public void stop() {
+        synchronized (this) {
+            running = false;
+            notifyAll();
+        }
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        recognizer.close();
+        cardDetector.release();
+        locator.release();
+        arena.close();
+        for (Bitmap bitmap : bitmapPool) {
+            bitmap.recycle();
+        }
+        bitmapPool.clear();
+    }
+
+    private void run() {
+        List<CardTracker.Track> tracks;
+        int regionCount;
+        long frameNumber;
+        while (true) {
+            synchronized (this) {
+                while (running && !hasPending) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (!running) {
+                    return;
+                }
+                Mat frame = pending;
+                pending = working;
+                working = frame;
+                Region[] regions = pendingRegions;
+                pendingRegions = workingRegions;
+                workingRegions = regions;
+                regionCount = pendingRegionCount;
+                tracks = pendingTracks;
+                frameNumber = pendingFrameNumber;
+                hasPending = false;
+            }
+            analyze(working, workingRegions, regionCount, tracks, frameNumber);
+        }
+    }
+
+    private void analyze(Mat frame, Region[] regions, int regionCount, List<CardTracker.Track> known,
+                         long frameNumber) {
+        float[] confidences = new float[HandState.MAX_CARDS];
+        List<CardTracker.Track> tracks = new ArrayList<>();
+        HandState hand = recognizeCards(frame, regions, regionCount, known, confidences, tracks);
+        if (hand.size() == 0) {
+            Bitmap bitmap = acquireBitmap(frame.cols(), frame.rows());
+            try {
+                Utils.matToBitmap(frame, bitmap);
+                Text text = Tasks.await(recognizer.process(InputImage.fromBitmap(bitmap, 0)));
+                for (Text.TextBlock block : text.getTextBlocks()) {
+                    String blockText = block.getText().trim();
+                    Log.d(TAG, "OCR Block Text: " + blockText);
+                    int index = hand.size();
+                    if (CARD_TEXT.matcher(blockText).matches() && hand.add(blockText) && hand.size() > index) {
+                        confidences[index] = OCR_CONFIDENCE;
+                    }
+                }
+            } catch (ExecutionException e) {
+                Log.e(TAG, "OCR Failed: " + e.getCause().getMessage());
+                listener.onError("OCR Error");
+                return;
+            } catch (InterruptedException e) {
+                // Stopping; the frame is dropped
+                return;
+            } finally {
+                releaseBitmap(bitmap);
+            }
+        }
+        listener.onCards(hand, confidences, tracks, frameNumber);
+    }
+
+    // Reads rank and suit from the index corner of every detected card that is not already tracked,
+    // from the given regions or, if there are none, from cards detected on the frame
+    private HandState recognizeCards(Mat frame, Region[] regions, int regionCount, List<CardTracker.Track> known,
+                                     float[] confidences, List<CardTracker.Track> tracks) {
+        HandState hand = new HandState();
+        if (!templateBank.isReady()) {
+            // The classifiers are still being loaded or trained
+            return hand;
+        }
+        rankClassifier = templateBank.getRankClassifier();
+        suitClassifier = templateBank.getSuitClassifier();
+        int count = regionCount >= 0 ? regionCount : cardDetector.detect(frame);
+        for (int i = 0; i < count; i++) {
+            Point[] corners = regionCount >= 0 ? regions[i].frameCorners : cardDetector.corners(i);
+            String name = trackedCard(known, corners);
+            float confidence = TRACKED_CONFIDENCE;
+            if (name == null) {
+                Mat card;
+                if (regionCount >= 0) {
+                    cardDetector.rectify(regions[i].image, regions[i].corners, rectified);
+                    card = rectified;
+                } else {
+                    card = cardDetector.card(i);
+                }
+                CornerClassifier.Read read = readCorner(card);
+                name = read != null ? read.name : null;
+                confidence = read != null ? (float) read.agreement : 0;
+            }
+            if (name != null) {
+                int index = hand.size();
+                if (hand.add(name) && hand.size() > index) {
+                    confidences[index] = confidence;
+                }
+                tracks.add(new CardTracker.Track(name, corners));
+            }
+        }
+        return hand;
+    }
+
+    // Card of the track whose outline holds the center of a detected card, or null
+    private static String trackedCard(List<CardTracker.Track> known, Point[] corners) {
+        Point center = new Point((corners[0].x + corners[2].x) / 2, (corners[0].y + corners[2].y) / 2);
+        for (CardTracker.Track track : known) {
+            if (track.contains(center)) {
+                return track.card;
+            }
+        }
+        return null;
+    }
+
+    // Rank and suit of a rectified card, e.g. "Kh", or null if either is not recognized
+    private CornerClassifier.Read readCorner(Mat card) {
+        try (MatArena scratch = new MatArena("analysis")) {
+            Mat rankCorner = scratch.track(card.submat(CardDetector.RANK_CORNER));
+            CornerClassifier.Read rank = rankClassifier.classify(rankCorner, MIN_AGREEMENT);
+            if (rank == null) {
+                return null;
+            }
+            Mat suitCorner = scratch.track(card.submat(CardDetector.SUIT_CORNER));
+            CornerClassifier.Read suit = suitClassifier.classify(suitCorner, MIN_AGREEMENT);
+            if (suit == null) {
+                return null;
+            }
+            // Both corner reads must pass, so the weaker one bounds the confidence
+            return new CornerClassifier.Read(rank.name + suit.name, Math.min(rank.agreement, suit.agreement));
+        }
+    }
+
+    private Region[] newRegions() {
+        Region[] regions = new Region[HandState.MAX_CARDS];
+        for (int i = 0; i < regions.length; i++) {
+            regions[i] = new Region(arena.mat());
+        }
+        return regions;
+    }
+
+    private Bitmap acquireBitmap(int width, int height) {
+        Bitmap bitmap;
+        while ((bitmap = bitmapPool.poll()) != null) {
+            if (bitmap.getWidth() == width && bitmap.getHeight() == height) {
+                return bitmap;
+            }
+            // The frame size changed; pooled bitmaps of the old size are of no further use
+            bitmap.recycle();
+        }
+        return Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+    }
+
+    private void releaseBitmap(Bitmap bitmap) {
+        if (bitmapPool.size() < BITMAP_POOL_SIZE) {
+            bitmapPool.push(bitmap);
+        } else {
+            bitmap.recycle();
+        }
+    }
+}
@@ -0,0 +1,653 @@
+package com.example.pokeradvisor;
+
+import android.content.Context;
+import android.graphics.ImageFormat;
+import android.hardware.camera2.CameraAccessException;
+import android.hardware.camera2.CameraCaptureSession;
+import android.hardware.camera2.CameraCharacteristics;
+import android.hardware.camera2.CameraDevice;
+import android.hardware.camera2.CameraManager;
+import android.hardware.camera2.CaptureRequest;
+import android.hardware.camera2.params.StreamConfigurationMap;
+import android.media.Image;
+import android.media.ImageReader;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.AttributeSet;
+import android.util.Log;
+import android.view.Surface;
+import android.view.ViewGroup.LayoutParams;
+
+import org.opencv.android.CameraBridgeViewBase;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Camera2 view for card recognition, in place of OpenCV's {@code JavaCamera2View}, which it is
+ * derived from. The app builds against the OpenCV Maven artifact, so changes to the camera bridge
+ * live here rather than in a patched copy of the SDK. On top of the stock view it
+ * <ul>
+ * <li>reuses one frame, with its RGBA and I420 conversion buffers, for every image,</li>
+ * <li>can open a second, low-resolution stream for analysis ({@link #setAnalysisStreamSize}),</li>
+ * <li>lets a {@link FrameSizePolicy} choose the capture size, and restarts the camera on request
+ * so a new size takes effect ({@link #restartCamera}).</li>
+ * </ul>
+ * Frames are delivered to the listener on the view's camera thread.
+ */
+public class CardCameraView extends CameraBridgeViewBase {
+
+    private static final String TAG = "PokerAdvisor";
+    // Images a reader holds; acquireLatestImage needs room for one more than it keeps
+    private static final int MAX_IMAGES = 2;
+    private static final int PREVIEW_FORMAT = ImageFormat.YUV_420_888;
+
+    /**
+     * Chooses the camera frame size among the supported sizes that fit the view.
+     */
+    public interface FrameSizePolicy {
+        /**
+         * @param candidates supported sizes that fit both the surface and setMaxFrameSize()
+         * @return the size to capture, one of the candidates
+         */
+        Size selectFrameSize(List<Size> candidates);
+    }
+
+    private ImageReader imageReader;
+    private int frameRotation;
+    private CameraDevice cameraDevice;
+    private CameraCaptureSession captureSession;
+    private CaptureRequest.Builder previewRequestBuilder;
+    private String cameraId;
+    private android.util.Size previewSize = new android.util.Size(-1, -1);
+    private volatile FrameSizePolicy frameSizePolicy;
+
+    // Optional second, smaller stream for analysis; requested size, or null when off
+    private android.util.Size analysisRequest;
+    private android.util.Size analysisSize;
+    private ImageReader analysisReader;
+    private Mat analysisGray;
+    // Set when the camera could not stream both sizes at once and runs the preview alone
+    private volatile boolean analysisStreamFailed;
+
+    private I420Buffer i420Buffer;
+    // Rebound to every image; images are delivered one at a time on the background thread, so
+    // one frame is enough. Created per session
+    private CameraFrame frame;
+    private RotatedCameraFrame rotatedFrame;
+
+    private HandlerThread backgroundThread;
+    private Handler backgroundHandler;
+
+    public CardCameraView(Context context, int cameraId) {
+        super(context, cameraId);
+    }
+
+    public CardCameraView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    /**
+     * Replaces the default choice of the largest fitting frame size with a policy, or restores it
+     * when the policy is null. Like setMaxFrameSize(), it takes effect when the camera is next
+     * connected, see {@link #restartCamera()}.
+     */
+    public void setFrameSizePolicy(FrameSizePolicy policy) {
+        frameSizePolicy = policy;
+    }
+
+    /**
+     * Stops and starts the camera again if it is enabled, so that the frame size is chosen anew.
+     * The listener sees onCameraViewStopped() and onCameraViewStarted() with the new size.
+     * Call on the UI thread; stopping waits for the camera thread, so never from a frame callback.
+     */
+    public void restartCamera() {
+        if (mEnabled) {
+            disableView();
+            enableView();
+        }
+    }
+
+    /**
+     * Adds a second YUV stream for frame analysis, at most {@code width} x {@code height} and with
+     * the aspect ratio of the preview, or removes it when either is not positive. The preview
+     * stream keeps its full resolution for display and for reading details; analysis such as
+     * detection can run on {@link #getAnalysisGray()} instead. Takes effect when the camera is
+     * next connected.
+     */
+    public void setAnalysisStreamSize(int width, int height) {
+        analysisRequest = width > 0 && height > 0 ? new android.util.Size(width, height) : null;
+    }
+
+    /**
+     * Gray plane of the latest image of the analysis stream, rotated like the preview frames, or
+     * null if there is no analysis stream or it has not delivered an image yet. Both streams are
+     * handled on the camera thread, so the Mat is only valid there, e.g. in onCameraFrame(), and
+     * is overwritten by the next analysis image.
+     */
+    public Mat getAnalysisGray() {
+        return analysisGray == null || analysisGray.empty() ? null : analysisGray;
+    }
+
+    /**
+     * Returns whether an analysis stream was asked for and the camera accepted it. Some cameras
+     * cannot stream two sizes at once; the view then runs the preview stream alone, and
+     * {@link #getAnalysisGray()} stays null until the camera is connected again.
+     */
+    public boolean isAnalysisStreamAvailable() {
+        return analysisRequest != null && !analysisStreamFailed;
+    }
+
+    @Override
+    protected Size calculateCameraFrameSize(List<?> supportedSizes, ListItemAccessor accessor, int surfaceWidth,
+                                            int surfaceHeight) {
+        FrameSizePolicy policy = frameSizePolicy;
+        if (policy == null) {
+            return super.calculateCameraFrameSize(supportedSizes, accessor, surfaceWidth, surfaceHeight);
+        }
+        int maxWidth = mMaxWidth != MAX_UNSPECIFIED && mMaxWidth < surfaceWidth ? mMaxWidth : surfaceWidth;
+        int maxHeight = mMaxHeight != MAX_UNSPECIFIED && mMaxHeight < surfaceHeight ? mMaxHeight : surfaceHeight;
+        List<Size> candidates = new ArrayList<>();
+        for (Object size : supportedSizes) {
+            int width = accessor.getWidth(size);
+            int height = accessor.getHeight(size);
+            if (width <= maxWidth && height <= maxHeight) {
+                candidates.add(new Size(width, height));
+            }
+        }
+        if (candidates.isEmpty()) {
+            return super.calculateCameraFrameSize(supportedSizes, accessor, surfaceWidth, surfaceHeight);
+        }
+        Size selected = policy.selectFrameSize(candidates);
+        Log.i(TAG, "Frame size policy selected " + (int) selected.width + "x" + (int) selected.height);
+        return selected;
+    }
+
+    @Override
+    protected boolean connectCamera(int width, int height) {
+        Log.i(TAG, "Connecting camera for " + width + "x" + height);
+        analysisStreamFailed = false;
+        startBackgroundThread();
+        if (!selectCamera()) {
+            return false;
+        }
+        try {
+            CameraManager manager = (CameraManager) getContext().getSystemService(Context.CAMERA_SERVICE);
+            CameraCharacteristics characteristics = manager.getCameraCharacteristics(cameraId);
+            frameRotation = getFrameRotation(
+                    characteristics.get(CameraCharacteristics.LENS_FACING) == CameraCharacteristics.LENS_FACING_FRONT,
+                    characteristics.get(CameraCharacteristics.SENSOR_ORIENTATION));
+
+            boolean needReconfig = calcPreviewSize(characteristics, width, height);
+            if (frameRotation % 180 == 0) {
+                mFrameWidth = previewSize.getWidth();
+                mFrameHeight = previewSize.getHeight();
+            } else {
+                mFrameWidth = previewSize.getHeight();
+                mFrameHeight = previewSize.getWidth();
+            }
+
+            if (getLayoutParams().width == LayoutParams.MATCH_PARENT
+                    && getLayoutParams().height == LayoutParams.MATCH_PARENT) {
+                mScale = Math.min(((float) height) / mFrameHeight, ((float) width) / mFrameWidth);
+            } else {
+                mScale = 0;
+            }
+
+            AllocateCache();
+
+            if (needReconfig && captureSession != null) {
+                captureSession.close();
+                captureSession = null;
+            }
+
+            if (mFpsMeter != null) {
+                mFpsMeter.setResolution(mFrameWidth, mFrameHeight);
+            }
+
+            manager.openCamera(cameraId, stateCallback, backgroundHandler);
+        } catch (CameraAccessException e) {
+            Log.e(TAG, "Could not open camera " + cameraId, e);
+            return false;
+        } catch (SecurityException e) {
+            Log.e(TAG, "No permission to open camera " + cameraId, e);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    protected void disconnectCamera() {
+        try {
+            CameraDevice device = cameraDevice;
+            cameraDevice = null;
+            if (captureSession != null) {
+                captureSession.close();
+                captureSession = null;
+            }
+            if (device != null) {
+                device.close();
+            }
+        } finally {
+            stopBackgroundThread();
+            if (imageReader != null) {
+                imageReader.close();
+                imageReader = null;
+            }
+            releaseFrames();
+            if (i420Buffer != null) {
+                i420Buffer.release();
+                i420Buffer = null;
+            }
+            if (analysisReader != null) {
+                analysisReader.close();
+                analysisReader = null;
+            }
+            if (analysisGray != null) {
+                analysisGray.release();
+                analysisGray = null;
+            }
+        }
+        Log.i(TAG, "Camera closed");
+    }
+
+    private void startBackgroundThread() {
+        stopBackgroundThread();
+        backgroundThread = new HandlerThread("CardCamera");
+        backgroundThread.start();
+        backgroundHandler = new Handler(backgroundThread.getLooper());
+    }
+
+    private void stopBackgroundThread() {
+        if (backgroundThread == null) {
+            return;
+        }
+        backgroundThread.quitSafely();
+        try {
+            backgroundThread.join();
+            backgroundThread = null;
+            backgroundHandler = null;
+        } catch (InterruptedException e) {
+            Log.e(TAG, "Interrupted while stopping the camera thread", e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean selectCamera() {
+        CameraManager manager = (CameraManager) getContext().getSystemService(Context.CAMERA_SERVICE);
+        try {
+            String[] cameras = manager.getCameraIdList();
+            if (cameras.length == 0) {
+                Log.e(TAG, "No camera found");
+                return false;
+            }
+            cameraId = null;
+            if (mCameraIndex == CAMERA_ID_ANY) {
+                cameraId = cameras[0];
+            } else if (mCameraIndex == CAMERA_ID_BACK || mCameraIndex == CAMERA_ID_FRONT) {
+                int facing = mCameraIndex == CAMERA_ID_BACK
+                        ? CameraCharacteristics.LENS_FACING_BACK : CameraCharacteristics.LENS_FACING_FRONT;
+                for (String id : cameras) {
+                    Integer lensFacing = manager.getCameraCharacteristics(id).get(CameraCharacteristics.LENS_FACING);
+                    if (lensFacing != null && lensFacing == facing) {
+                        cameraId = id;
+                        break;
+                    }
+                }
+            } else if (mCameraIndex < cameras.length) {
+                cameraId = cameras[mCameraIndex];
+            }
+            if (cameraId == null) {
+                Log.e(TAG, "No camera matches index " + mCameraIndex);
+                return false;
+            }
+            return true;
+        } catch (CameraAccessException e) {
+            Log.e(TAG, "Could not list cameras", e);
+        }
+        return false;
+    }
+
+    private final CameraDevice.StateCallback stateCallback = new CameraDevice.StateCallback() {
+        @Override
+        public void onOpened(CameraDevice device) {
+            cameraDevice = device;
+            createCaptureSession();
+        }
+
+        @Override
+        public void onDisconnected(CameraDevice device) {
+            device.close();
+            cameraDevice = null;
+        }
+
+        @Override
+        public void onError(CameraDevice device, int error) {
+            Log.e(TAG, "Camera error " + error);
+            device.close();
+            cameraDevice = null;
+        }
+    };
+
+    private CameraCaptureSession.StateCallback sessionStateCallback() {
+        return new CameraCaptureSession.StateCallback() {
+            @Override
+            public void onConfigured(CameraCaptureSession session) {
+                if (cameraDevice == null) {
+                    return; // camera is already closed
+                }
+                captureSession = session;
+                try {
+                    previewRequestBuilder.set(CaptureRequest.CONTROL_AF_MODE,
+                            CaptureRequest.CONTROL_AF_MODE_CONTINUOUS_PICTURE);
+                    previewRequestBuilder.set(CaptureRequest.CONTROL_AE_MODE,
+                            CaptureRequest.CONTROL_AE_MODE_ON_AUTO_FLASH);
+                    captureSession.setRepeatingRequest(previewRequestBuilder.build(), null, backgroundHandler);
+                    Log.i(TAG, "Capture session started");
+                } catch (CameraAccessException | IllegalStateException e) {
+                    Log.e(TAG, "Could not start the capture session", e);
+                }
+            }
+
+            @Override
+            public void onConfigureFailed(CameraCaptureSession session) {
+                if (cameraDevice == null || analysisReader == null) {
+                    Log.e(TAG, "Capture session configuration failed");
+                    return;
+                }
+                // Try again with the preview stream alone
+                Log.w(TAG, "Camera cannot add a " + analysisSize + " analysis stream, continuing without it");
+                analysisStreamFailed = true;
+                analysisReader.close();
+                analysisReader = null;
+                analysisSize = null;
+                configureSession();
+            }
+        };
+    }
+
+    // Called on the background thread
+    private void createCaptureSession() {
+        int w = previewSize.getWidth();
+        int h = previewSize.getHeight();
+        if (w < 0 || h < 0 || cameraDevice == null || captureSession != null) {
+            return;
+        }
+        allocateFrames();
+        imageReader = ImageReader.newInstance(w, h, PREVIEW_FORMAT, MAX_IMAGES);
+        imageReader.setOnImageAvailableListener(new ImageReader.OnImageAvailableListener() {
+            @Override
+            public void onImageAvailable(ImageReader reader) {
+                Image image = reader.acquireLatestImage();
+                if (image == null) {
+                    return;
+                }
+                frame.bind(image);
+                deliverAndDrawFrame(rotatedFrame);
+                frame.unbind();
+                image.close();
+            }
+        }, backgroundHandler);
+        if (analysisSize != null) {
+            createAnalysisReader();
+        }
+        configureSession();
+    }
+
+    // Starts a session over the readers that exist; called on the background thread
+    private void configureSession() {
+        try {
+            List<Surface> surfaces = new ArrayList<>();
+            surfaces.add(imageReader.getSurface());
+            if (analysisReader != null) {
+                surfaces.add(analysisReader.getSurface());
+            }
+            previewRequestBuilder = cameraDevice.createCaptureRequest(CameraDevice.TEMPLATE_PREVIEW);
+            for (Surface surface : surfaces) {
+                previewRequestBuilder.addTarget(surface);
+            }
+            cameraDevice.createCaptureSession(surfaces, sessionStateCallback(), null);
+        } catch (CameraAccessException e) {
+            Log.e(TAG, "Could not create the capture session", e);
+        }
+    }
+
+    // Chooses the preview and analysis sizes; returns true if the preview size changed
+    private boolean calcPreviewSize(CameraCharacteristics characteristics, int width, int height) {
+        StreamConfigurationMap map = characteristics.get(CameraCharacteristics.SCALER_STREAM_CONFIGURATION_MAP);
+        android.util.Size[] sizes = map.getOutputSizes(ImageReader.class);
+        Size frameSize = calculateCameraFrameSize(Arrays.asList(sizes), new SizeAccessor(), width, height);
+        Log.i(TAG, "Selected preview size " + (int) frameSize.width + "x" + (int) frameSize.height);
+        analysisSize = analysisRequest == null ? null : calcAnalysisSize(sizes, frameSize);
+        if (previewSize.getWidth() == frameSize.width && previewSize.getHeight() == frameSize.height) {
+            return false;
+        }
+        previewSize = new android.util.Size((int) frameSize.width, (int) frameSize.height);
+        return true;
+    }
+
+    // Largest size within the requested one with the preview's aspect ratio, else the smallest
+    private android.util.Size calcAnalysisSize(android.util.Size[] sizes, Size frameSize) {
+        double aspect = frameSize.width / frameSize.height;
+        android.util.Size best = null;
+        android.util.Size smallest = null;
+        for (android.util.Size size : sizes) {
+            int area = size.getWidth() * size.getHeight();
+            if (smallest == null || area < smallest.getWidth() * smallest.getHeight()) {
+                smallest = size;
+            }
+            if (size.getWidth() <= analysisRequest.getWidth() && size.getHeight() <= analysisRequest.getHeight()
+                    && Math.abs((double) size.getWidth() / size.getHeight() - aspect) < 0.01
+                    && (best == null || area > best.getWidth() * best.getHeight())) {
+                best = size;
+            }
+        }
+        android.util.Size selected = best != null ? best : smallest;
+        Log.i(TAG, "Selected analysis size " + selected.getWidth() + "x" + selected.getHeight());
+        return selected;
+    }
+
+    // Called on the background thread, like the listener it installs
+    private void createAnalysisReader() {
+        analysisGray = new Mat();
+        analysisReader = ImageReader.newInstance(analysisSize.getWidth(), analysisSize.getHeight(),
+                PREVIEW_FORMAT, MAX_IMAGES);
+        analysisReader.setOnImageAvailableListener(new ImageReader.OnImageAvailableListener() {
+            @Override
+            public void onImageAvailable(ImageReader reader) {
+                Image image = reader.acquireLatestImage();
+                if (image == null) {
+                    return;
+                }
+                // Only the gray plane is kept, copied so the image can go back to the reader at once
+                Image.Plane plane = image.getPlanes()[0];
+                Mat y = planeHeader(plane, image.getHeight(), image.getWidth(), CvType.CV_8UC1);
+                if (frameRotation == 90) {
+                    Core.rotate(y, analysisGray, Core.ROTATE_90_CLOCKWISE);
+                } else if (frameRotation == 180) {
+                    Core.rotate(y, analysisGray, Core.ROTATE_180);
+                } else if (frameRotation == 270) {
+                    Core.rotate(y, analysisGray, Core.ROTATE_90_COUNTERCLOCKWISE);
+                } else {
+                    y.copyTo(analysisGray);
+                }
+                y.release();
+                image.close();
+            }
+        }, backgroundHandler);
+    }
+
+    // Called on the background thread, or once it has stopped
+    private void allocateFrames() {
+        releaseFrames();
+        frame = new CameraFrame();
+        rotatedFrame = new RotatedCameraFrame(frame, frameRotation);
+    }
+
+    private void releaseFrames() {
+        if (frame == null) {
+            return;
+        }
+        rotatedFrame.release();
+        frame.release();
+        frame = null;
+        rotatedFrame = null;
+    }
+
+    // Called on the background thread only
+    private I420Buffer obtainI420Buffer(int w, int h) {
+        if (i420Buffer == null || i420Buffer.width != w || i420Buffer.height != h) {
+            if (i420Buffer != null) {
+                i420Buffer.release();
+            }
+            i420Buffer = new I420Buffer(w, h);
+        }
+        return i420Buffer;
+    }
+
+    private static final class SizeAccessor implements ListItemAccessor {
+        @Override
+        public int getWidth(Object obj) {
+            return ((android.util.Size) obj).getWidth();
+        }
+
+        @Override
+        public int getHeight(Object obj) {
+            return ((android.util.Size) obj).getHeight();
+        }
+    }
+
+    /**
+     * Packed I420 frame for cameras that deliver planar chroma, kept between frames of the same
+     * size so that rgba() neither allocates a Java array nor a new Mat per frame. The Y, U and V
+     * Mats are headers over consecutive parts of one direct buffer.
+     */
+    private static final class I420Buffer {
+        final int width;
+        final int height;
+        final Mat yuv;
+        final Mat y;
+        final Mat u;
+        final Mat v;
+
+        I420Buffer(int w, int h) {
+            width = w;
+            height = h;
+            int ySize = w * h;
+            int chromaSize = (w / 2) * (h / 2);
+            ByteBuffer data = ByteBuffer.allocateDirect(ySize + 2 * chromaSize);
+            yuv = new Mat(h + h / 2, w, CvType.CV_8UC1, data);
+            y = new Mat(h, w, CvType.CV_8UC1, data);
+            data.position(ySize);
+            u = new Mat(h / 2, w / 2, CvType.CV_8UC1, data.slice());
+            data.position(ySize + chromaSize);
+            v = new Mat(h / 2, w / 2, CvType.CV_8UC1, data.slice());
+        }
+
+        void release() {
+            yuv.release();
+            y.release();
+            u.release();
+            v.release();
+        }
+    }
+
+    /**
+     * Mat header over an image plane, without copying its pixels. Every Image hands out new
+     * ByteBuffers for its planes, and a Mat cannot be pointed at another buffer from Java, so a
+     * header (a small native cv::Mat and its Java object) is created per plane and image and must
+     * be released once the image is done.
+     */
+    private static Mat planeHeader(Image.Plane plane, int rows, int cols, int type) {
+        return new Mat(rows, cols, type, plane.getBuffer(), plane.getRowStride());
+    }
+
+    /**
+     * Camera frame that is bound to one image after another. Its RGBA buffer persists between
+     * images, so the only per-image allocations are the headers over the image's planes, at most
+     * three, built on first use and released when the frame is unbound.
+     */
+    private final class CameraFrame implements CvCameraViewFrame {
+        private Image image;
+        private final Mat rgba = new Mat();
+        private Mat yPlane;
+        private Mat chromaPlane1;
+        private Mat chromaPlane2;
+
+        @Override
+        public Mat gray() {
+            if (yPlane == null) {
+                yPlane = planeHeader(image.getPlanes()[0], image.getHeight(), image.getWidth(), CvType.CV_8UC1);
+            }
+            return yPlane;
+        }
+
+        @Override
+        public Mat rgba() {
+            Image.Plane[] planes = image.getPlanes();
+            int w = image.getWidth();
+            int h = image.getHeight();
+            Mat y = gray();
+            if (planes[1].getPixelStride() == 2) {
+                // Chroma channels are interleaved; the plane that starts first says NV12 or NV21
+                if (chromaPlane1 == null) {
+                    chromaPlane1 = planeHeader(planes[1], h / 2, w / 2, CvType.CV_8UC2);
+                    chromaPlane2 = planeHeader(planes[2], h / 2, w / 2, CvType.CV_8UC2);
+                }
+                if (chromaPlane2.dataAddr() > chromaPlane1.dataAddr()) {
+                    Imgproc.cvtColorTwoPlane(y, chromaPlane1, rgba, Imgproc.COLOR_YUV2RGBA_NV12);
+                } else {
+                    Imgproc.cvtColorTwoPlane(y, chromaPlane2, rgba, Imgproc.COLOR_YUV2RGBA_NV21);
+                }
+            } else {
+                if (chromaPlane1 == null) {
+                    chromaPlane1 = planeHeader(planes[1], h / 2, w / 2, CvType.CV_8UC1);
+                    chromaPlane2 = planeHeader(planes[2], h / 2, w / 2, CvType.CV_8UC1);
+                }
+                I420Buffer i420 = obtainI420Buffer(w, h);
+                // Strided native copies of each plane into the packed I420 layout
+                y.copyTo(i420.y);
+                chromaPlane1.copyTo(i420.u);
+                chromaPlane2.copyTo(i420.v);
+                Imgproc.cvtColor(i420.yuv, rgba, Imgproc.COLOR_YUV2RGBA_I420, 4);
+            }
+            return rgba;
+        }
+
+        // Makes the frame show an image until unbind(); the image stays owned by the caller
+        void bind(Image boundImage) {
+            image = boundImage;
+        }
+
+        void unbind() {
+            releasePlanes();
+            image = null;
+        }
+
+        @Override
+        public void release() {
+            rgba.release();
+            releasePlanes();
+        }
+
+        private void releasePlanes() {
+            if (yPlane != null) {
+                yPlane.release();
+                yPlane = null;
+            }
+            if (chromaPlane1 != null) {
+                chromaPlane1.release();
+                chromaPlane2.release();
+                chromaPlane1 = null;
+                chromaPlane2 = null;
+            }
+        }
+    }
+}
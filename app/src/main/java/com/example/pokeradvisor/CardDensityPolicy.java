@@ -0,0 +1,97 @@
+package com.example.pokeradvisor;
+
+import org.opencv.core.Point;
+import org.opencv.core.Size;
+
+import java.util.List;
+
+/**
+ * Chooses the smallest camera frame size at which card corners are still large enough to read.
+ * Card sizes are observed as a fraction of the frame's short side, which does not depend on the
+ * resolution, so the frame size that gives the smallest card a rank corner of
+ * {@link #TARGET_CORNER_HEIGHT} pixels follows directly. Until a card has been seen the largest
+ * size is used. The observed fraction is smoothed, and a new size is only asked for when the
+ * current one is too small, or more than {@link #SHRINK_FACTOR} times larger than needed, and at
+ * most once per {@link #MIN_RENEGOTIATE_INTERVAL}, since restarting the camera costs a moment of
+ * preview.
+ */
+public final class CardDensityPolicy implements CardCameraView.FrameSizePolicy {
+
+    public static final double TARGET_CORNER_HEIGHT = 32;
+    public static final double SHRINK_FACTOR = 2.0;
+    public static final long MIN_RENEGOTIATE_INTERVAL = 10_000; // milliseconds
+
+    // Rank corner height relative to the card height
+    private static final double CORNER_FRACTION = (double) CardDetector.RANK_CORNER.height / CardDetector.CARD_HEIGHT;
+    // Weight of a new observation in the smoothed card fraction
+    private static final double SMOOTHING = 0.3;
+
+    private double cardFraction;
+    private double selectedShortSide;
+    private double largestShortSide;
+    private double smallestShortSide;
+    private long lastRenegotiation;
+
+    @Override
+    public synchronized Size selectFrameSize(List<Size> candidates) {
+        Size largest = candidates.get(0);
+        Size smallest = candidates.get(0);
+        Size best = null;
+        double required = requiredShortSide();
+        for (Size size : candidates) {
+            if (size.area() > largest.area()) {
+                largest = size;
+            }
+            if (size.area() < smallest.area()) {
+                smallest = size;
+            }
+            if (required > 0 && shortSide(size) >= required && (best == null || size.area() < best.area())) {
+                best = size;
+            }
+        }
+        Size selected = best != null ? best : largest;
+        selectedShortSide = shortSide(selected);
+        largestShortSide = shortSide(largest);
+        smallestShortSide = shortSide(smallest);
+        return selected;
+    }
+
+    /**
+     * Records the cards found in a frame.
+     * @param cards the cards with their outlines
+     * @param frameSize size of the frame the outlines are in
+     * @return true if the camera should be restarted to pick a better frame size
+     */
+    public synchronized boolean observe(List<CardTracker.Track> cards, Size frameSize) {
+        if (cards.isEmpty() || selectedShortSide == 0) {
+            return false;
+        }
+        double smallest = Double.MAX_VALUE;
+        for (CardTracker.Track card : cards) {
+            Point[] corners = card.corners;
+            smallest = Math.min(smallest, Math.hypot(corners[3].x - corners[0].x, corners[3].y - corners[0].y));
+        }
+        double fraction = smallest / shortSide(frameSize);
+        cardFraction = cardFraction == 0 ? fraction : cardFraction + SMOOTHING * (fraction - cardFraction);
+
+        double required = requiredShortSide();
+        // Nothing is gained by restarting at the largest or smallest size already
+        boolean tooSmall = selectedShortSide < required && selectedShortSide < largestShortSide;
+        boolean tooLarge = selectedShortSide > required * SHRINK_FACTOR && selectedShortSide > smallestShortSide;
+        long now = System.currentTimeMillis();
+        if ((tooSmall || tooLarge) && now - lastRenegotiation >= MIN_RENEGOTIATE_INTERVAL) {
+            lastRenegotiation = now;
+            return true;
+        }
+        return false;
+    }
+
+    // Short side a frame needs for the smallest card's corner to reach the target, or 0 if unknown
+    private double requiredShortSide() {
+        return cardFraction == 0 ? 0 : TARGET_CORNER_HEIGHT / (CORNER_FRACTION * cardFraction);
+    }
+
+    private static double shortSide(Size size) {
+        return Math.min(size.width, size.height);
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.pokeradvisor;
+
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfPoint;
+import org.opencv.core.MatOfPoint2f;
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Finds cards in a camera frame and straightens them to a canonical upright size.
+ * The frame, or the camera's gray plane directly, is Otsu-thresholded so the white cards stand out from the
+ * table, then every outer contour that simplifies to a large convex quadrilateral is taken as a
+ * card and warped with a perspective transform to {@link #CARD_WIDTH} x {@link #CARD_HEIGHT}.
+ * Rank and suit can then be read from the fixed {@link #RANK_CORNER} and {@link #SUIT_CORNER}
+ * crops. Cards are returned in reading order: row by row from the top, each row left to right.
+ * Working Mats are kept between frames, so a detector must only be used from one thread.
+ */
+public final class CardDetector {
+
+    public static final int CARD_WIDTH = 200;
+    public static final int CARD_HEIGHT = 280;
+    // Index corner of a rectified card: the rank with the small suit symbol below it
+    public static final Rect RANK_CORNER = new Rect(2, 4, 34, 46);
+    public static final Rect SUIT_CORNER = new Rect(2, 48, 34, 36);
+
+    private static final int MAX_CARDS = 7;
+    // Smallest card as a fraction of the frame area
+    private static final double MIN_AREA_FRACTION = 0.002;
+    private static final double MAX_AREA_FRACTION = 0.5;
+    private static final double APPROX_EPSILON = 0.02;
+
+    private final MatArena arena = new MatArena("detection");
+    private final Mat gray = arena.mat();
+    private final Mat binary = arena.mat();
+    private final Mat hierarchy = arena.mat();
+    private final MatOfPoint2f curve = arena.track(new MatOfPoint2f());
+    private final MatOfPoint2f quad = arena.track(new MatOfPoint2f());
+    private final MatOfPoint2f target = arena.track(new MatOfPoint2f(new Point(0, 0), new Point(CARD_WIDTH - 1, 0),
+            new Point(CARD_WIDTH - 1, CARD_HEIGHT - 1), new Point(0, CARD_HEIGHT - 1)));
+    private final Size cardSize = new Size(CARD_WIDTH, CARD_HEIGHT);
+    private final List<Mat> cards = new ArrayList<>();
+    private final List<Point[]> corners = new ArrayList<>();
+    private int count;
+
+    /**
+     * Detects the cards of a frame, either a single-channel gray (Y) plane or RGBA. A gray plane is
+     * used as it is, without a color conversion or copy.
+     * @return the number of cards, available through {@link #card(int)} until the next call
+     */
+    public int detect(Mat frame) {
+        Mat source = frame.channels() != 1 ? gray : frame;
+        locate(frame);
+        for (int i = 0; i < count; i++) {
+            if (cards.size() <= i) {
+                cards.add(arena.mat());
+            }
+            rectify(source, corners.get(i), cards.get(i));
+        }
+        return count;
+    }
+
+    /**
+     * Finds the outlines of the cards of a frame like {@link #detect} but does not rectify them,
+     * so only {@link #corners(int)} is available until the next call.
+     * @return the number of cards
+     */
+    public int locate(Mat frame) {
+        Mat source = frame;
+        if (frame.channels() != 1) {
+            Imgproc.cvtColor(frame, gray, Imgproc.COLOR_RGBA2GRAY);
+            source = gray;
+        }
+        Imgproc.GaussianBlur(source, binary, new Size(5, 5), 0);
+        Imgproc.threshold(binary, binary, 0, 255, Imgproc.THRESH_BINARY | Imgproc.THRESH_OTSU);
+
+        double frameArea = (double) source.rows() * source.cols();
+        corners.clear();
+        try (MatArena scratch = new MatArena("detection")) {
+            List<MatOfPoint> contours = new ArrayList<>();
+            Imgproc.findContours(binary, contours, hierarchy, Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE);
+            for (MatOfPoint contour : contours) {
+                scratch.track(contour);
+            }
+            for (MatOfPoint contour : contours) {
+                double area = Imgproc.contourArea(contour);
+                if (area >= frameArea * MIN_AREA_FRACTION && area <= frameArea * MAX_AREA_FRACTION) {
+                    contour.convertTo(curve, curve.type());
+                    double perimeter = Imgproc.arcLength(curve, true);
+                    Imgproc.approxPolyDP(curve, quad, APPROX_EPSILON * perimeter, true);
+                    if (quad.rows() == 4) {
+                        Point[] points = quad.toArray();
+                        if (Imgproc.isContourConvex(scratch.track(new MatOfPoint(points)))) {
+                            corners.add(uprightCorners(points));
+                        }
+                    }
+                }
+            }
+        }
+        sortReadingOrder(corners);
+
+        count = Math.min(corners.size(), MAX_CARDS);
+        return count;
+    }
+
+    /**
+     * Warps the card with the given corners, clockwise from its top left, out of an image to
+     * {@link #CARD_WIDTH} x {@link #CARD_HEIGHT}.
+     */
+    public void rectify(Mat image, Point[] cardCorners, Mat card) {
+        quad.fromArray(cardCorners);
+        try (MatArena scratch = new MatArena("detection")) {
+            Mat transform = scratch.track(Imgproc.getPerspectiveTransform(quad, target));
+            Imgproc.warpPerspective(image, card, transform, cardSize);
+        }
+    }
+
+    // Rectified grayscale card, valid until the next detect call
+    public Mat card(int index) {
+        if (index >= count) {
+            throw new IndexOutOfBoundsException("Card " + index + " of " + count);
+        }
+        return cards.get(index);
+    }
+
+    // Corners of a detected card in the frame, clockwise from the rectified top left
+    public Point[] corners(int index) {
+        if (index >= count) {
+            throw new IndexOutOfBoundsException("Card " + index + " of " + count);
+        }
+        return corners.get(index);
+    }
+
+    public void release() {
+        arena.close();
+        cards.clear();
+        count = 0;
+    }
+
+    // Orders quad corners clockwise from top left, turning landscape cards upright
+    private static Point[] uprightCorners(Point[] points) {
+        Point topLeft = points[0];
+        Point topRight = points[0];
+        Point bottomRight = points[0];
+        Point bottomLeft = points[0];
+        for (Point point : points) {
+            if (point.x + point.y < topLeft.x + topLeft.y) {
+                topLeft = point;
+            }
+            if (point.x + point.y > bottomRight.x + bottomRight.y) {
+                bottomRight = point;
+            }
+            if (point.y - point.x < topRight.y - topRight.x) {
+                topRight = point;
+            }
+            if (point.y - point.x > bottomLeft.y - bottomLeft.x) {
+                bottomLeft = point;
+            }
+        }
+        if (distance(topLeft, topRight) > distance(topLeft, bottomLeft)) {
+            // Index corners sit in opposite corners, so either quarter turn puts one at the top left
+            return new Point[]{topRight, bottomRight, bottomLeft, topLeft};
+        }
+        return new Point[]{topLeft, topRight, bottomRight, bottomLeft};
+    }
+
+    // Sorts cards into rows by their centers, then each row left to right
+    private static void sortReadingOrder(List<Point[]> cards) {
+        Collections.sort(cards, (a, b) -> Double.compare(center(a).y, center(b).y));
+        int rowStart = 0;
+        for (int i = 1; i <= cards.size(); i++) {
+            // A new row starts once a card is more than half a card height below the row's first card
+            if (i == cards.size() || center(cards.get(i)).y - center(cards.get(rowStart)).y
+                    > distance(cards.get(rowStart)[0], cards.get(rowStart)[3]) / 2) {
+                Collections.sort(cards.subList(rowStart, i), (a, b) -> Double.compare(center(a).x, center(b).x));
+                rowStart = i;
+            }
+        }
+    }
+
+    private static Point center(Point[] corners) {
+        return new Point((corners[0].x + corners[2].x) / 2, (corners[0].y + corners[2].y) / 2);
+    }
+
+    private static double distance(Point a, Point b) {
+        return Math.hypot(a.x - b.x, a.y - b.y);
+    }
+}
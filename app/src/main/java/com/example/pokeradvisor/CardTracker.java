@@ -0,0 +1,229 @@
+package com.example.pokeradvisor;
+
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.core.MatOfFloat;
+import org.opencv.core.MatOfPoint2f;
+import org.opencv.core.Point;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+import org.opencv.video.SparsePyrLKOpticalFlow;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Follows recognized cards from frame to frame so they do not have to be recognized again.
+ * The four corners of every card are tracked with pyramidal Lucas-Kanade optical flow on a
+ * half-resolution copy of the gray plane. A card whose corners are not all found again, or whose
+ * outline shrinks or grows too much, is dropped and reported as lost, which is the cue to run
+ * recognition again. A frame sent to the analysis pipeline is kept with {@link #keyFrame}, and
+ * the tracks recognized in it are handed in with {@link #offer} from the pipeline's thread. The
+ * next {@link #update} flows them from that frame to the new one, so they catch up with the cards
+ * that moved while the frame was analyzed; if the frame is no longer kept they are taken as they
+ * are. Everything but {@link #offer} must be called from the camera thread.
+ */
+public final class CardTracker {
+
+    private static final double SCALE = 0.5;
+    private static final float MAX_ERROR = 20;
+    // Allowed change of a card's area between consecutive frames
+    private static final double MAX_AREA_RATIO = 1.5;
+    // Frames waiting for their tracks; the analysis thread only works on the latest submitted one
+    private static final int MAX_KEY_FRAMES = 8;
+
+    /**
+     * A recognized card, e.g. "Kh", with its corners in frame coordinates, clockwise from top left.
+     */
+    public static final class Track {
+        public final String card;
+        public final Point[] corners;
+
+        public Track(String card, Point[] corners) {
+            this.card = card;
+            this.corners = corners;
+        }
+
+        // Whether a frame point lies inside the card's outline
+        public boolean contains(Point point) {
+            boolean inside = false;
+            for (int i = 0, j = corners.length - 1; i < corners.length; j = i++) {
+                Point a = corners[i];
+                Point b = corners[j];
+                if ((a.y > point.y) != (b.y > point.y)
+                        && point.x < (b.x - a.x) * (point.y - a.y) / (b.y - a.y) + a.x) {
+                    inside = !inside;
+                }
+            }
+            return inside;
+        }
+
+        double area() {
+            double twiceArea = 0;
+            for (int i = 0, j = corners.length - 1; i < corners.length; j = i++) {
+                twiceArea += (corners[j].x + corners[i].x) * (corners[j].y - corners[i].y);
+            }
+            return Math.abs(twiceArea) / 2;
+        }
+    }
+
+    private static final class KeyFrame {
+        final Mat thumbnail;
+        long number;
+
+        KeyFrame(Mat thumbnail) {
+            this.thumbnail = thumbnail;
+        }
+    }
+
+    private final SparsePyrLKOpticalFlow flow = SparsePyrLKOpticalFlow.create(new Size(21, 21), 3);
+    private final MatArena arena = new MatArena("tracking");
+    private final Mat previous = arena.mat();
+    private final Mat current = arena.mat();
+    private final MatOfPoint2f previousPoints = arena.track(new MatOfPoint2f());
+    private final MatOfPoint2f nextPoints = arena.track(new MatOfPoint2f());
+    private final MatOfByte status = arena.track(new MatOfByte());
+    private final MatOfFloat error = arena.track(new MatOfFloat());
+    // Oldest first; used on the camera thread only
+    private final ArrayDeque<KeyFrame> keyFrames = new ArrayDeque<>(MAX_KEY_FRAMES);
+    private final ArrayDeque<KeyFrame> spareKeyFrames = new ArrayDeque<>(MAX_KEY_FRAMES);
+    private long frameNumber;
+
+    private volatile List<Track> tracks = Collections.emptyList();
+    // Tracks from the analysis thread waiting for the camera thread, and the number of the frame
+    // they were recognized in, guarded by this
+    private List<Track> offered;
+    private long offeredFrame;
+    private boolean lost;
+
+    /**
+     * Keeps the frame of the last {@link #update} until tracks are offered from it, and returns
+     * its number.
+     */
+    public long keyFrame() {
+        KeyFrame key = keyFrames.size() == MAX_KEY_FRAMES ? keyFrames.removeFirst() : spareKeyFrames.poll();
+        if (key == null) {
+            key = new KeyFrame(arena.mat());
+        }
+        previous.copyTo(key.thumbnail);
+        key.number = frameNumber;
+        keyFrames.addLast(key);
+        return frameNumber;
+    }
+
+    /**
+     * Replaces the tracked cards with the cards recognized in a key frame.
+     * @param frame the number {@link #keyFrame} returned for it
+     */
+    public synchronized void offer(List<Track> recognized, long frame) {
+        offered = new ArrayList<>(recognized);
+        offeredFrame = frame;
+    }
+
+    // Cards tracked in the last frame; the list is not modified afterwards
+    public List<Track> getTracks() {
+        return tracks;
+    }
+
+    /**
+     * Returns whether a card was lost since the last call, and clears the flag.
+     */
+    public synchronized boolean consumeLost() {
+        boolean wasLost = lost;
+        lost = false;
+        return wasLost;
+    }
+
+    /**
+     * Moves the tracked cards to their positions in a new frame.
+     * @param gray the frame's single-channel gray plane
+     */
+    public void update(Mat gray) {
+        Imgproc.resize(gray, current, new Size(), SCALE, SCALE, Imgproc.INTER_AREA);
+        frameNumber++;
+        List<Track> adopted;
+        long adoptedFrame;
+        synchronized (this) {
+            adopted = offered;
+            adoptedFrame = offeredFrame;
+            offered = null;
+        }
+        List<Track> active = tracks;
+        Mat from = previous;
+        KeyFrame key = null;
+        if (adopted != null) {
+            active = adopted;
+            key = takeKeyFrame(adoptedFrame);
+            from = key != null ? key.thumbnail : null;
+        }
+        if (!active.isEmpty() && from != null && !from.empty() && from.size().equals(current.size())) {
+            List<Track> moved = follow(from, active);
+            if (moved.size() < active.size()) {
+                synchronized (this) {
+                    lost = true;
+                }
+            }
+            tracks = moved;
+        } else {
+            tracks = active;
+        }
+        if (key != null) {
+            spareKeyFrames.add(key);
+        }
+        current.copyTo(previous);
+    }
+
+    public void release() {
+        arena.close();
+    }
+
+    // Removes the key frames up to a number and returns the one with that number, or null
+    private KeyFrame takeKeyFrame(long number) {
+        KeyFrame found = null;
+        while (!keyFrames.isEmpty() && keyFrames.peekFirst().number <= number) {
+            KeyFrame key = keyFrames.removeFirst();
+            if (key.number == number) {
+                found = key;
+            } else {
+                spareKeyFrames.add(key);
+            }
+        }
+        return found;
+    }
+
+    private List<Track> follow(Mat from, List<Track> active) {
+        Point[] points = new Point[active.size() * 4];
+        for (int i = 0; i < active.size(); i++) {
+            Point[] corners = active.get(i).corners;
+            for (int k = 0; k < 4; k++) {
+                points[i * 4 + k] = new Point(corners[k].x * SCALE, corners[k].y * SCALE);
+            }
+        }
+        previousPoints.fromArray(points);
+        flow.calc(from, current, previousPoints, nextPoints, status, error);
+        Point[] next = nextPoints.toArray();
+        byte[] found = status.toArray();
+        float[] errors = error.toArray();
+
+        List<Track> moved = new ArrayList<>(active.size());
+        for (int i = 0; i < active.size(); i++) {
+            Point[] corners = new Point[4];
+            boolean kept = true;
+            for (int k = 0; k < 4 && kept; k++) {
+                int index = i * 4 + k;
+                kept = found[index] == 1 && errors[index] < MAX_ERROR;
+                corners[k] = new Point(next[index].x / SCALE, next[index].y / SCALE);
+            }
+            if (kept) {
+                Track track = new Track(active.get(i).card, corners);
+                double ratio = track.area() / active.get(i).area();
+                if (ratio < MAX_AREA_RATIO && ratio > 1 / MAX_AREA_RATIO) {
+                    moved.add(track);
+                }
+            }
+        }
+        return moved;
+    }
+}
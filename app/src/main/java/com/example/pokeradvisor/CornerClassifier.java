@@ -0,0 +1,226 @@
+package com.example.pokeradvisor;
+
+import android.util.Log;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfDouble;
+import org.opencv.core.MatOfFloat;
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+import org.opencv.ml.KNearest;
+import org.opencv.ml.Ml;
+import org.opencv.objdetect.HOGDescriptor;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a rank or suit from a card corner with a k-nearest-neighbour classifier on HOG features.
+ * A corner crop is resized to a HOG window close to the crop's size, described by one
+ * {@code HOGDescriptor.compute} and classified by one {@code findNearest}, in place of matching
+ * every template at every scale. The classifier is trained from the template assets, each pasted
+ * into a corner-sized canvas at several sizes, offsets and small rotations and optionally
+ * blurred, so it holds up when the detector's crop is not perfectly aligned. The trained model is
+ * saved with {@code StatModel.save} and loaded from there on later starts. The confidence of a
+ * read is the share of the {@link #K} nearest samples that agree with it. Working Mats are reused,
+ * so {@link #classify} is synchronized; one classifier serves the pipelines of successive camera
+ * sessions.
+ */
+public final class CornerClassifier {
+
+    private static final String TAG = "PokerAdvisor";
+
+    public static final int K = 5;
+
+    private static final int CELL = 8;
+    private static final int BINS = 9;
+    // Crops with less contrast than this hold no glyph
+    private static final double FLAT_STDDEV = 8;
+    // Template size relative to the largest that fits the corner
+    private static final double[] FITS = {0.6, 0.75, 0.9};
+    // Template position within the corner's free space, as a fraction per axis
+    private static final double[] OFFSETS = {0.0, 0.5, 1.0};
+    private static final double[] ANGLES = {-8, 0, 8};
+
+    /**
+     * A name read from a crop with the share of the nearest samples that agreed on it.
+     */
+    public static final class Read {
+        public final String name;
+        public final double agreement;
+
+        public Read(String name, double agreement) {
+            this.name = name;
+            this.agreement = agreement;
+        }
+    }
+
+    private final String[] names;
+    private final KNearest model;
+    private final Size window;
+    private final HOGDescriptor hog;
+    private final MatArena arena = new MatArena("classification");
+    private final Mat resized = arena.mat();
+    private final MatOfFloat descriptors = arena.track(new MatOfFloat());
+    private final MatOfDouble mean = arena.track(new MatOfDouble());
+    private final MatOfDouble stddev = arena.track(new MatOfDouble());
+    private final Mat result = arena.mat();
+    private final Mat neighbors = arena.mat();
+    private final Mat distances = arena.mat();
+    private final float[] neighborLabels = new float[K];
+
+    private CornerClassifier(String[] names, KNearest model, Size corner) {
+        this.names = names;
+        this.model = model;
+        window = windowFor(corner);
+        hog = new HOGDescriptor(window, new Size(2 * CELL, 2 * CELL), new Size(CELL, CELL),
+                new Size(CELL, CELL), BINS);
+    }
+
+    /**
+     * Loads the model saved for {@code prefix} in a directory, or trains and saves one from the
+     * bank's templates named {@code prefix + name}. Called on the bank's loading thread.
+     * @param corner size of the crops that will be classified
+     * @return the classifier, or null if there is no saved model and no template to train on
+     */
+    public static CornerClassifier loadOrTrain(File directory, TemplateBank bank, String prefix, String[] names,
+                                               Size corner) {
+        File file = new File(directory, prefix + "hog_knn.yml");
+        if (file.isFile()) {
+            KNearest model = KNearest.load(file.getPath());
+            CornerClassifier classifier = new CornerClassifier(names, model, corner);
+            if (model.isTrained() && model.getVarCount() == classifier.hog.getDescriptorSize()) {
+                return classifier;
+            }
+            Log.w(TAG, "Discarding incompatible model " + file.getName());
+            classifier.release();
+        }
+        long start = System.nanoTime();
+        CornerClassifier classifier = train(bank, prefix, names, corner);
+        if (classifier == null) {
+            Log.w(TAG, "No templates to train " + file.getName() + " on");
+            return null;
+        }
+        classifier.model.save(file.getPath());
+        Log.i(TAG, "Trained " + file.getName() + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return classifier;
+    }
+
+    // Returns null if none of the templates could be decoded
+    private static CornerClassifier train(TemplateBank bank, String prefix, String[] names, Size corner) {
+        CornerClassifier classifier = new CornerClassifier(names, KNearest.create(), corner);
+        try (MatArena training = new MatArena("training")) {
+            List<Mat> rows = new ArrayList<>();
+            List<Integer> labels = new ArrayList<>();
+            for (int i = 0; i < names.length; i++) {
+                Mat template = bank.template(prefix + names[i]);
+                if (template != null) {
+                    classifier.addSamples(template, corner, i, training, rows, labels);
+                }
+            }
+            if (rows.isEmpty()) {
+                classifier.release();
+                return null;
+            }
+
+            Mat samples = training.mat();
+            Core.vconcat(rows, samples);
+            Mat responses = training.track(new Mat(labels.size(), 1, CvType.CV_32F));
+            for (int i = 0; i < labels.size(); i++) {
+                responses.put(i, 0, labels.get(i));
+            }
+            classifier.model.setDefaultK(K);
+            classifier.model.setIsClassifier(true);
+            classifier.model.train(samples, Ml.ROW_SAMPLE, responses);
+        }
+        return classifier;
+    }
+
+    /**
+     * Returns what was read from a grayscale corner crop if at least {@code minAgreement} of the
+     * nearest samples agree on it, or null.
+     */
+    public synchronized Read classify(Mat gray, double minAgreement) {
+        Core.meanStdDev(gray, mean, stddev);
+        if (stddev.toArray()[0] < FLAT_STDDEV) {
+            return null;
+        }
+        float label;
+        try (MatArena scratch = new MatArena("classification")) {
+            label = model.findNearest(scratch.track(describe(gray)), K, result, neighbors, distances);
+        }
+        neighbors.get(0, 0, neighborLabels);
+        int agreeing = 0;
+        for (float neighbor : neighborLabels) {
+            if (neighbor == label) {
+                agreeing++;
+            }
+        }
+        double agreement = (double) agreeing / K;
+        if (agreement < minAgreement) {
+            return null;
+        }
+        return new Read(names[(int) label], agreement);
+    }
+
+    public synchronized void release() {
+        arena.close();
+        model.clear();
+    }
+
+    // One row of HOG features; a header over the reused descriptor buffer that the caller releases
+    private Mat describe(Mat gray) {
+        Imgproc.resize(gray, resized, window, 0, 0, Imgproc.INTER_AREA);
+        hog.compute(resized, descriptors);
+        return descriptors.reshape(1, 1);
+    }
+
+    // Augmented copies of one template placed in corner-sized canvases, one feature row each
+    private void addSamples(Mat template, Size corner, int label, MatArena training, List<Mat> rows,
+                            List<Integer> labels) {
+        // The template's top row is its background, which also fills the rest of the canvas
+        Scalar background = Core.mean(training.track(template.row(0)));
+        Mat canvas = training.track(new Mat(corner, CvType.CV_8UC1));
+        Mat rotated = training.mat();
+        Mat scaled = training.mat();
+        Point center = new Point(corner.width / 2, corner.height / 2);
+        double largest = Math.min(corner.width / template.cols(), corner.height / template.rows());
+        for (double fit : FITS) {
+            Size size = new Size(Math.max(1, Math.round(template.cols() * largest * fit)),
+                    Math.max(1, Math.round(template.rows() * largest * fit)));
+            Imgproc.resize(template, scaled, size, 0, 0, fit * largest < 1 ? Imgproc.INTER_AREA : Imgproc.INTER_LINEAR);
+            for (double offset : OFFSETS) {
+                canvas.setTo(background);
+                Rect place = new Rect((int) Math.round((corner.width - size.width) * offset),
+                        (int) Math.round((corner.height - size.height) * offset), (int) size.width, (int) size.height);
+                scaled.copyTo(training.track(canvas.submat(place)));
+                for (double angle : ANGLES) {
+                    Mat rotation = training.track(Imgproc.getRotationMatrix2D(center, angle, 1.0));
+                    Imgproc.warpAffine(canvas, rotated, rotation, corner, Imgproc.INTER_LINEAR,
+                            Core.BORDER_CONSTANT, background);
+                    addRow(rotated, label, training, rows, labels);
+                    Imgproc.GaussianBlur(rotated, rotated, new Size(3, 3), 0);
+                    addRow(rotated, label, training, rows, labels);
+                }
+            }
+        }
+    }
+
+    private void addRow(Mat sample, int label, MatArena training, List<Mat> rows, List<Integer> labels) {
+        Mat features = training.track(describe(sample));
+        rows.add(training.track(features.clone()));
+        labels.add(label);
+    }
+
+    // HOG window with the corner's proportions, in whole cells and at least one block
+    private static Size windowFor(Size corner) {
+        return new Size(Math.max(2, Math.round(corner.width / CELL)) * CELL,
+                Math.max(2, Math.round(corner.height / CELL)) * CELL);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.pokeradvisor;
+
+import com.example.pokeradvisor.game.SceneSettler;
+
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * Decides which camera frames are worth a full recognition pass.
+ * Every frame's gray plane is shrunk to a thumbnail of {@link #THUMBNAIL_WIDTH} columns and
+ * compared with the previous thumbnail; the mean absolute difference is the motion score, which a
+ * {@link SceneSettler} turns into the decision. A scene is analyzed once after it has changed and
+ * then stayed still for a few frames, so a static table is never re-analyzed; the first scene is
+ * analyzed once it has settled. Call {@link #shouldAnalyze} from the camera thread only.
+ */
+public final class FrameScheduler {
+
+    public static final int THUMBNAIL_WIDTH = 32;
+
+    private final MatArena arena = new MatArena("scheduling");
+    private final Mat thumbnail = arena.mat();
+    private final Mat previous = arena.mat();
+    private final Mat difference = arena.mat();
+
+    private final SceneSettler settler = new SceneSettler();
+    private volatile double lastScore;
+    private volatile long analyzedFrames;
+    private volatile long skippedFrames;
+
+    /**
+     * Sets the mean gray level difference (0-255) that starts a scene change, and the one the
+     * scene must stay below for {@code frames} consecutive frames before it is analyzed.
+     */
+    public void setThresholds(double motion, double settle, int frames) {
+        settler.setThresholds(motion, settle, frames);
+    }
+
+    /**
+     * Scores a frame against the previous one.
+     * @param gray the frame's single-channel gray plane
+     * @return true if the frame should be analyzed
+     */
+    public boolean shouldAnalyze(Mat gray) {
+        double scale = (double) THUMBNAIL_WIDTH / gray.cols();
+        Imgproc.resize(gray, thumbnail, new Size(THUMBNAIL_WIDTH, Math.max(1, Math.round(gray.rows() * scale))),
+                0, 0, Imgproc.INTER_AREA);
+        if (previous.empty() || !previous.size().equals(thumbnail.size())) {
+            lastScore = Double.MAX_VALUE;
+        } else {
+            Core.absdiff(thumbnail, previous, difference);
+            lastScore = Core.mean(difference).val[0];
+        }
+        boolean analyze = settler.offer(lastScore);
+        thumbnail.copyTo(previous);
+
+        if (analyze) {
+            analyzedFrames++;
+        } else {
+            skippedFrames++;
+        }
+        return analyze;
+    }
+
+    // Motion score of the last frame, or Double.MAX_VALUE when there was nothing to compare with
+    public double getLastScore() {
+        return lastScore;
+    }
+
+    public long getAnalyzedFrames() {
+        return analyzedFrames;
+    }
+
+    public long getSkippedFrames() {
+        return skippedFrames;
+    }
+
+    public double getMotionThreshold() {
+        return settler.getMotionThreshold();
+    }
+
+    public double getSettleThreshold() {
+        return settler.getSettleThreshold();
+    }
+
+    public int getSettleFrames() {
+        return settler.getSettleFrames();
+    }
+
+    public void release() {
+        arena.close();
+    }
+}
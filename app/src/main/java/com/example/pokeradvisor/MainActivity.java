@@ -2,9 +2,6 @@ package com.example.pokeradvisor;
 
 import android.Manifest;
 import android.content.pm.PackageManager;
-import android.content.res.AssetManager;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.os.Bundle;
 import android.util.Log;
 import android.widget.Toast;
@@ -13,46 +10,56 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 import org.opencv.android.CameraBridgeViewBase;
-import org.opencv.android.JavaCamera2View;
 import org.opencv.android.OpenCVLoader;
-import org.opencv.android.Utils;
-import org.opencv.core.Core;
 import org.opencv.core.Mat;
-import org.opencv.core.MatOfPoint;
-import org.opencv.core.Rect;
-import org.opencv.core.Scalar;
 import org.opencv.core.Size;
-import org.opencv.core.Point;
-import org.opencv.imgproc.Imgproc;
-import java.io.IOException;
-import java.io.InputStream;
-import java.util.ArrayList;
 import java.util.List;
-import com.google.mlkit.vision.common.InputImage;
-import com.google.mlkit.vision.text.TextRecognition;
-import com.google.mlkit.vision.text.TextRecognizer;
-import com.google.mlkit.vision.text.Text;
-import com.google.android.gms.tasks.Task;
-import com.google.mlkit.vision.text.latin.TextRecognizerOptions;
+import com.example.pokeradvisor.equity.EquityEngine;
+import com.example.pokeradvisor.eval.OutsAnalyzer;
+import com.example.pokeradvisor.game.CardVoter;
+import com.example.pokeradvisor.game.HandState;
 
-public class MainActivity extends AppCompatActivity implements CameraBridgeViewBase.CvCameraViewListener2 {
+public class MainActivity extends AppCompatActivity
+        implements CameraBridgeViewBase.CvCameraViewListener2, AnalysisPipeline.Listener {
 
     private static final String TAG = "PokerAdvisor";
     private static final int CAMERA_PERMISSION_REQUEST_CODE = 100;
-    private static final long FRAME_PROCESS_INTERVAL_MS = 2000; // Process every 2 seconds
     private static final long UPDATE_INTERVAL = 1000; // Update text every 1 second (in milliseconds)
-
-    private JavaCamera2View cameraView;
-    private Mat rgbaMat;
-    private long lastProcessedTime = 0;
+    private static final int OPPONENT_COUNT = 1; // Random hands hero is up against
+    private static final boolean GRAY_RECOGNITION = true; // Recognize on the camera's Y plane instead of RGBA
+    private static final int VOTE_WINDOW = 5; // Recognitions remembered per card position
+    private static final int VOTES_TO_SETTLE = 3; // Recognitions a card needs before advice uses it
+    private static final boolean ANALYSIS_STREAM = true; // Locate cards on a second, low-resolution camera stream
+    private static final int ANALYSIS_WIDTH = 640;
+    private static final int ANALYSIS_HEIGHT = 480;
+    private static final long ANALYSIS_STREAM_TIMEOUT = 2000; // Wait for the analysis stream before using full frames (milliseconds)
+
+    private CardCameraView cameraView;
     private String lastDisplayedText = ""; // Track the last displayed text
     private long lastUpdateTime = 0; // Track the last time the text was updated
+    private String lastEquityText = ""; // Equity of the last recognized hand
+    private EquityEngine equityEngine;
+    private TemplateBank templateBank;
+    private AnalysisPipeline analysisPipeline;
+    private FrameScheduler frameScheduler;
+    private OverlayRenderer overlayRenderer;
+    private CardTracker cardTracker;
+    private final CardVoter cardVoter = new CardVoter(VOTE_WINDOW, VOTES_TO_SETTLE);
+    private volatile boolean voting;
+    private final CardDensityPolicy frameSizePolicy = new CardDensityPolicy();
+    // Size of the frames card outlines are found in, for the frame size policy
+    private volatile Size sceneSize = new Size();
+    // Start of the current camera session, and whether cards are found on its full-resolution frames
+    private volatile long cameraStartTime;
+    private volatile boolean fullFrameScene;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
         Log.i(TAG, "onCreate called");
+        equityEngine = new EquityEngine();
+        equityEngine.setPreflopLoader(new PreflopEquityAsset(getAssets()));
 
         cameraView = findViewById(R.id.camera_view);
         if (cameraView == null) {
@@ -67,7 +74,13 @@ public class MainActivity extends AppCompatActivity implements CameraBridgeViewB
             return;
         }
         Log.i(TAG, "OpenCV initialized successfully");
+        templateBank = new TemplateBank(getAssets(), getFilesDir());
+        templateBank.preload();
 
+        if (ANALYSIS_STREAM) {
+            cameraView.setAnalysisStreamSize(ANALYSIS_WIDTH, ANALYSIS_HEIGHT);
+        }
+        cameraView.setFrameSizePolicy(frameSizePolicy);
         cameraView.setCvCameraViewListener(this);
     }
 
@@ -104,6 +117,10 @@ public class MainActivity extends AppCompatActivity implements CameraBridgeViewB
         if (cameraView != null) {
             cameraView.disableView();
         }
+        equityEngine.shutdown();
+        if (templateBank != null) {
+            templateBank.release();
+        }
     }
 
     private void initializeCamera() {
@@ -120,210 +137,158 @@ public class MainActivity extends AppCompatActivity implements CameraBridgeViewB
     @Override
     public void onCameraViewStarted(int width, int height) {
         Log.i(TAG, "onCameraViewStarted called, width: " + width + ", height: " + height);
-        rgbaMat = new Mat();
+        cameraStartTime = System.currentTimeMillis();
+        fullFrameScene = !ANALYSIS_STREAM;
+        cardTracker = new CardTracker();
+        analysisPipeline = new AnalysisPipeline(templateBank, this);
+        frameScheduler = new FrameScheduler();
+        overlayRenderer = new OverlayRenderer();
     }
 
     @Override
     public void onCameraViewStopped() {
         Log.i(TAG, "onCameraViewStopped called");
-        if (rgbaMat != null) {
-            rgbaMat.release();
+        if (analysisPipeline != null) {
+            analysisPipeline.stop();
+            analysisPipeline = null;
+        }
+        if (frameScheduler != null) {
+            Log.i(TAG, "Analyzed " + frameScheduler.getAnalyzedFrames() + " frames, skipped " + frameScheduler.getSkippedFrames());
+            frameScheduler.release();
+            frameScheduler = null;
+        }
+        if (overlayRenderer != null) {
+            overlayRenderer.release();
+            overlayRenderer = null;
+        }
+        if (cardTracker != null) {
+            cardTracker.release();
+            cardTracker = null;
+        }
+        for (MatArena.Stats stats : MatArena.allStats()) {
+            Log.i(TAG, "Native memory of " + stats);
         }
     }
 
     @Override
     public Mat onCameraFrame(CameraBridgeViewBase.CvCameraViewFrame inputFrame) {
-        rgbaMat = inputFrame.rgba();
-
-        long currentTime = System.currentTimeMillis();
-        if (currentTime - lastProcessedTime < FRAME_PROCESS_INTERVAL_MS) {
-            Mat overlay = new Mat(rgbaMat.size(), rgbaMat.type(), new Scalar(0, 255, 0, 100));
-            Core.addWeighted(rgbaMat, 0.8, overlay, 0.2, 0.0, rgbaMat);
-            Imgproc.putText(rgbaMat, lastDisplayedText, new Point(50, 50), Imgproc.FONT_HERSHEY_SIMPLEX, 1.0, new Scalar(255, 255, 255), 2);
-            overlay.release();
-            return rgbaMat;
-        }
-        lastProcessedTime = currentTime;
-
-        Bitmap bitmap = Bitmap.createBitmap(rgbaMat.cols(), rgbaMat.rows(), Bitmap.Config.ARGB_8888);
-        Utils.matToBitmap(rgbaMat, bitmap);
-
-        InputImage image = InputImage.fromBitmap(bitmap, 0);
-        TextRecognizer recognizer = TextRecognition.getClient(TextRecognizerOptions.DEFAULT_OPTIONS);
-
-        recognizer.process(image)
-                .addOnSuccessListener(text -> {
-                    StringBuilder resultText = new StringBuilder();
-                    for (Text.TextBlock block : text.getTextBlocks()) {
-                        String blockText = block.getText().trim();
-                        Log.d(TAG, "OCR Block Text: " + blockText);
-                        if (isCardText(blockText)) {
-                            resultText.append(blockText).append(", ");
-                        }
-                    }
-                    synchronized (this) {
-                        lastDisplayedText = resultText.length() > 0 ? resultText.substring(0, resultText.length() - 2) : "No cards identified";
-                        lastUpdateTime = System.currentTimeMillis();
-                    }
-                    bitmap.recycle(); // Recycle after OCR completes
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "OCR Failed: " + e.getMessage());
-                    synchronized (this) {
-                        lastDisplayedText = "OCR Error";
-                        lastUpdateTime = System.currentTimeMillis();
-                    }
-                    bitmap.recycle(); // Recycle after OCR completes
-                });
-
-        Mat overlay = new Mat(rgbaMat.size(), rgbaMat.type(), new Scalar(0, 255, 0, 100));
-        Core.addWeighted(rgbaMat, 0.8, overlay, 0.2, 0.0, rgbaMat);
-        Imgproc.putText(rgbaMat, lastDisplayedText, new Point(50, 50), Imgproc.FONT_HERSHEY_SIMPLEX, 1.0, new Scalar(255, 255, 255), 2);
-        overlay.release();
-
-        return rgbaMat;
-    }
-
-    // Helper method to validate card text (e.g., "Kh", "10s")
-    private boolean isCardText(String text) {
-        String pattern = "^[AKQJ10][hscd]$|^[2-9][hscd]$";
-        return text.matches(pattern);
-    }
-
-    // Helper method to identify the suit based on template matching
-    private String identifySuit(Mat roi) {
-        // Convert ROI to grayscale
-        Mat grayRoi = new Mat();
-        Imgproc.cvtColor(roi, grayRoi, Imgproc.COLOR_RGB2GRAY);
-        Log.d(TAG, "Original grayRoi size: " + grayRoi.cols() + "x" + grayRoi.rows());
-
-        String[] suits = {"h", "s", "d", "c"};
-        String bestSuit = null;
-        double bestScore = -1;
-
-        for (String suit : suits) {
-            Mat template = loadTemplateFromAssets("suit_" + suit + ".png");
-            if (template == null) {
-                Log.w(TAG, "Failed to load template: suit_" + suit + ".png");
-                continue;
+        // The Mats belong to the camera view, which reuses them for the next frame. The
+        // full-resolution gray plane is only fetched when needed: with the frame rotated it is a
+        // full-frame copy
+        Mat rgbaMat = inputFrame.rgba();
+
+        // With the analysis stream, motion, tracking and card outlines all work on its small frames
+        // and only the regions around cards are taken from the full-resolution frame
+        Mat small = null;
+        if (!fullFrameScene) {
+            small = cameraView.getAnalysisGray();
+            if (small == null) {
+                if (cameraView.isAnalysisStreamAvailable()
+                        && System.currentTimeMillis() - cameraStartTime < ANALYSIS_STREAM_TIMEOUT) {
+                    // The analysis stream has not delivered yet; tracks must stay in its coordinates
+                    drawOverlay(rgbaMat);
+                    return rgbaMat;
+                }
+                // Tracks are in the coordinates of one stream, so this session stays on full frames
+                Log.w(TAG, "No analysis stream, finding cards on full-resolution frames");
+                fullFrameScene = true;
             }
+        }
+        Mat scene = small != null ? small : inputFrame.gray();
+        if (sceneSize.width != scene.cols() || sceneSize.height != scene.rows()) {
+            sceneSize = scene.size();
+        }
 
-            // Ensure template is grayscale
-            Mat grayTemplate = new Mat();
-            if (template.channels() == 3) {
-                Imgproc.cvtColor(template, grayTemplate, Imgproc.COLOR_RGB2GRAY);
+        // Tracked cards only move; a scene that changed and settled again, or a lost card, is
+        // recognized on the analysis thread, where cards still being tracked are not read again.
+        // Frames keep going there until the card vote has settled on the new scene
+        cardTracker.update(scene);
+        boolean changed = frameScheduler.shouldAnalyze(scene);
+        boolean lost = cardTracker.consumeLost();
+        if (changed || lost || voting) {
+            long frameNumber = cardTracker.keyFrame();
+            if (small != null) {
+                analysisPipeline.submit(small, inputFrame.gray(), cardTracker.getTracks(), frameNumber);
             } else {
-                grayTemplate = template;
-            }
-            Log.d(TAG, "Template suit_" + suit + " size: " + grayTemplate.cols() + "x" + grayTemplate.rows());
-
-            // Ensure grayRoi is at least as large as grayTemplate
-            if (grayTemplate.cols() > grayRoi.cols() || grayTemplate.rows() > grayRoi.rows()) {
-                int newWidth = Math.max(grayRoi.cols(), grayTemplate.cols());
-                int newHeight = Math.max(grayRoi.rows(), grayTemplate.rows());
-                Mat resizedRoi = new Mat();
-                Imgproc.resize(grayRoi, resizedRoi, new Size(newWidth, newHeight));
-                grayRoi.release();
-                grayRoi = resizedRoi;
-                Log.d(TAG, "Resized grayRoi to: " + grayRoi.cols() + "x" + grayRoi.rows());
+                analysisPipeline.submit(GRAY_RECOGNITION ? scene : rgbaMat, cardTracker.getTracks(), frameNumber);
             }
+        }
 
-            Mat result = new Mat();
-            Imgproc.matchTemplate(grayRoi, grayTemplate, result, Imgproc.TM_CCOEFF_NORMED);
-            double score = Core.minMaxLoc(result).maxVal;
-            Log.d(TAG, "Template matching score for suit_" + suit + ": " + score);
-
-            if (score > bestScore && score > 0.7) {
-                bestScore = score;
-                bestSuit = suit;
-            }
+        drawOverlay(rgbaMat);
+        return rgbaMat;
+    }
 
-            template.release();
-            result.release();
-            if (grayTemplate != template) {
-                grayTemplate.release();
-            }
+    // Helper method to draw the last recognized cards and equity on the frame
+    private void drawOverlay(Mat frame) {
+        String cardsText;
+        String equityText;
+        synchronized (this) {
+            cardsText = lastDisplayedText;
+            equityText = lastEquityText;
         }
-
-        grayRoi.release();
-        return bestSuit;
+        overlayRenderer.draw(frame, cardsText, equityText);
     }
 
-    // Helper method to identify the rank using template matching
-    private String identifyRank(Mat roi) {
-        Mat grayRoi = new Mat();
-        Imgproc.cvtColor(roi, grayRoi, Imgproc.COLOR_RGB2GRAY);
-        int cornerSize = Math.min(roi.rows(), roi.cols()) / 4;
-        if (cornerSize <= 0) {
-            grayRoi.release();
-            return null;
+    @Override
+    public void onCards(HandState hand, float[] confidences, List<CardTracker.Track> tracks, long frameNumber) {
+        cardTracker.offer(tracks, frameNumber);
+        if (frameSizePolicy.observe(tracks, sceneSize)) {
+            // Restarting stops this pipeline, so it cannot happen on the analysis thread
+            runOnUiThread(() -> {
+                if (cameraView != null) {
+                    cameraView.restartCamera();
+                }
+            });
         }
-        Rect cornerRect = new Rect(0, 0, cornerSize, cornerSize);
-        if (cornerRect.width > grayRoi.cols() || cornerRect.height > grayRoi.rows()) {
-            grayRoi.release();
-            return null;
+        // Advice only follows cards that have been read consistently over the last frames
+        boolean changed = cardVoter.vote(hand, confidences);
+        voting = !cardVoter.isSettled();
+        if (!changed) {
+            return;
         }
-        Mat corner = grayRoi.submat(cornerRect);
-        Log.d(TAG, "Extracted corner for rank: " + corner.cols() + "x" + corner.rows());
-
-        String[] ranks = {"A", "K", "Q", "J", "10", "9", "8", "7", "6", "5", "4", "3", "2"};
-        String bestRank = null;
-        double bestScore = -1;
-
-        for (String rank : ranks) {
-            Mat template = loadTemplateFromAssets("rank_" + rank + ".png");
-            if (template == null) {
-                Log.w(TAG, "Failed to load template: rank_" + rank + ".png");
-                continue;
-            }
-
-            Log.d(TAG, "Loaded template for rank_" + rank + ": " + template.cols() + "x" + template.rows());
-
-            // Ensure corner is at least as large as template
-            if (template.cols() > corner.cols() || template.rows() > corner.rows()) {
-                int newWidth = Math.max(corner.cols(), template.cols());
-                int newHeight = Math.max(corner.rows(), template.rows());
-                Mat resizedCorner = new Mat();
-                Imgproc.resize(corner, resizedCorner, new Size(newWidth, newHeight));
-                corner.release();
-                corner = resizedCorner;
-                Log.d(TAG, "Resized corner for rank_" + rank + " to: " + corner.cols() + "x" + corner.rows());
-            }
+        HandState stable = cardVoter.getStableHand();
+        String handText = describeHand(stable);
+        requestEquity(stable);
+        synchronized (this) {
+            lastDisplayedText = stable.size() == 0 ? "No cards identified" : stable.cardsText() + handText;
+            lastUpdateTime = System.currentTimeMillis();
+        }
+    }
 
-            Mat result = new Mat();
-            Imgproc.matchTemplate(corner, template, result, Imgproc.TM_CCOEFF_NORMED);
-            double score = Core.minMaxLoc(result).maxVal;
-            Log.d(TAG, "Template matching score for rank_" + rank + ": " + score);
+    @Override
+    public void onError(String message) {
+        synchronized (this) {
+            lastDisplayedText = message;
+            lastUpdateTime = System.currentTimeMillis();
+        }
+    }
 
-            if (score > bestScore && score > 0.7) {
-                bestScore = score;
-                bestRank = rank;
+    // Helper method to start an equity calculation for hero's hole cards and the board
+    private void requestEquity(HandState hand) {
+        if (!hand.hasHole()) {
+            synchronized (this) {
+                lastEquityText = "";
             }
-
-            template.release();
-            result.release();
+            return;
         }
-
-        corner.release();
-        grayRoi.release();
-        return bestRank;
+        equityEngine.requestEquity(hand.hole(), hand.board(), OPPONENT_COUNT, (heroCards, boardCards, opponents, result) -> {
+            synchronized (MainActivity.this) {
+                lastEquityText = "Equity vs " + opponents + ": " + result;
+            }
+        });
     }
 
-    // Helper method to load template images from assets
-    private Mat loadTemplateFromAssets(String filename) {
-        try {
-            AssetManager assetManager = getAssets();
-            InputStream inputStream = assetManager.open(filename);
-            Bitmap bitmap = BitmapFactory.decodeStream(inputStream);
-            inputStream.close();
-            if (bitmap == null) return null;
-            Mat template = new Mat();
-            Utils.bitmapToMat(bitmap, template);
-            Imgproc.cvtColor(template, template, Imgproc.COLOR_BGR2GRAY);
-            return template;
-        } catch (IOException e) {
-            return null;
+    // Helper method to name the best hand once five to seven distinct cards are known, with outs before the river
+    private String describeHand(HandState hand) {
+        String name = hand.handName();
+        if (name == null) {
+            return "";
+        }
+        OutsAnalyzer.Outs outs = hand.outs();
+        if (outs == null) {
+            return " (" + name + ")";
         }
+        return " (" + name + ", " + outs.count() + " outs, " + outs.cleanCount() + " clean)";
     }
 
     @Override
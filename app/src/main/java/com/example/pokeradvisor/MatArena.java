@@ -0,0 +1,216 @@
+package com.example.pokeradvisor;
+
+import android.util.Log;
+
+import org.opencv.core.Mat;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Owns the native memory of the Mats of one stage of the vision code and frees it in one place.
+ * A component allocates its working Mats from an arena and closes the arena in its own
+ * {@code release()}; a one-off computation opens an arena in try-with-resources. Mats are never
+ * left to their finalizers: closing releases every Mat of the arena. Each stage, such as
+ * "detection" or "tracking", has {@link Stats} with the native bytes held by its open arenas and
+ * the Mats of arenas that were garbage collected without being closed, so a leak shows up as a
+ * counter instead of as native memory that grows over a long session. Collected arenas are found
+ * through phantom references, not finalizers; their Mats are still reachable from the reference
+ * and are released when the leak is counted, the next time an arena is opened or the stats are
+ * read. Per-frame temporaries such as submats and contours belong in an arena opened for the frame
+ * in try-with-resources, so that a missing release is counted like any other.
+ */
+public final class MatArena implements AutoCloseable {
+
+    private static final String TAG = "PokerAdvisor";
+    // Stats by stage, guarded by itself
+    private static final Map<String, Stats> STATS = new LinkedHashMap<>();
+    // Arenas collected while still open
+    private static final ReferenceQueue<MatArena> COLLECTED = new ReferenceQueue<>();
+
+    /**
+     * Memory counters of one stage. Byte counts cover the data of matrices, not views created
+     * with {@code submat}, which share their parent's data.
+     */
+    public static final class Stats {
+        private final String stage;
+        // Open arenas of the stage, guarded by this. Each is phantom reachable only, so an arena
+        // that is dropped without being closed can still be collected and counted as a leak
+        private final List<Tracker> open = new ArrayList<>();
+        private long closedArenas;
+        private long releasedMats;
+        private long leakedMats;
+        private long peakBytes;
+
+        private Stats(String stage) {
+            this.stage = stage;
+        }
+
+        public String getStage() {
+            return stage;
+        }
+
+        // Native bytes held by the Mats of the stage's open arenas
+        public synchronized long getLiveBytes() {
+            long bytes = 0;
+            for (Tracker tracker : open) {
+                bytes += tracker.bytes();
+            }
+            return bytes;
+        }
+
+        // Largest number of bytes an arena of the stage held when it was closed
+        public synchronized long getPeakBytes() {
+            return peakBytes;
+        }
+
+        public synchronized int getOpenArenas() {
+            return open.size();
+        }
+
+        public synchronized long getClosedArenas() {
+            return closedArenas;
+        }
+
+        public synchronized long getReleasedMats() {
+            return releasedMats;
+        }
+
+        // Mats of arenas that were collected without being closed
+        public synchronized long getLeakedMats() {
+            return leakedMats;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return stage + ": " + getLiveBytes() / 1024 + " KB live in " + open.size() + " arenas, peak "
+                    + peakBytes / 1024 + " KB, " + releasedMats + " Mats released, " + leakedMats + " leaked";
+        }
+    }
+
+    /**
+     * The Mats of one arena, reachable from the arena's phantom reference so that they can still
+     * be released after the arena itself was collected.
+     */
+    private static final class Tracker extends PhantomReference<MatArena> {
+        private final Stats stats;
+        // Guarded by stats, which reads the arena's size from other threads
+        private final List<Mat> mats = new ArrayList<>();
+        private boolean closed;
+
+        Tracker(MatArena arena, Stats stats) {
+            super(arena, COLLECTED);
+            this.stats = stats;
+        }
+
+        // Called with stats locked
+        long bytes() {
+            long bytes = 0;
+            for (Mat mat : mats) {
+                if (!mat.isSubmatrix()) {
+                    bytes += mat.total() * mat.elemSize();
+                }
+            }
+            return bytes;
+        }
+
+        // Called with stats locked
+        void releaseAll() {
+            for (Mat mat : mats) {
+                mat.release();
+            }
+            mats.clear();
+            closed = true;
+            stats.open.remove(this);
+        }
+    }
+
+    private final Stats stats;
+    private final Tracker tracker;
+
+    public MatArena(String stage) {
+        collectLeaks();
+        stats = stats(stage);
+        tracker = new Tracker(this, stats);
+        synchronized (stats) {
+            stats.open.add(tracker);
+        }
+    }
+
+    /**
+     * Counters of a stage; a stage without arenas so far reports zeros.
+     */
+    public static Stats stats(String stage) {
+        synchronized (STATS) {
+            Stats stats = STATS.get(stage);
+            if (stats == null) {
+                stats = new Stats(stage);
+                STATS.put(stage, stats);
+            }
+            return stats;
+        }
+    }
+
+    // Counters of every stage, in the order stages first opened an arena
+    public static List<Stats> allStats() {
+        collectLeaks();
+        synchronized (STATS) {
+            return Collections.unmodifiableList(new ArrayList<>(STATS.values()));
+        }
+    }
+
+    // A new empty Mat owned by the arena
+    public Mat mat() {
+        return track(new Mat());
+    }
+
+    /**
+     * Makes the arena own a Mat, such as a {@code MatOfPoint2f} or a submat, and returns it.
+     */
+    public <T extends Mat> T track(T mat) {
+        synchronized (stats) {
+            if (tracker.closed) {
+                throw new IllegalStateException("Arena of " + stats.stage + " is closed");
+            }
+            tracker.mats.add(mat);
+        }
+        return mat;
+    }
+
+    /**
+     * Releases every Mat of the arena. Closing twice has no effect.
+     */
+    @Override
+    public void close() {
+        synchronized (stats) {
+            if (tracker.closed) {
+                return;
+            }
+            stats.peakBytes = Math.max(stats.peakBytes, tracker.bytes());
+            stats.releasedMats += tracker.mats.size();
+            stats.closedArenas++;
+            tracker.releaseAll();
+        }
+        tracker.clear();
+    }
+
+    // Counts and releases the Mats of arenas that were collected without being closed
+    private static void collectLeaks() {
+        Tracker tracker;
+        while ((tracker = (Tracker) COLLECTED.poll()) != null) {
+            synchronized (tracker.stats) {
+                if (!tracker.closed) {
+                    Log.w(TAG, "Arena of " + tracker.stats.stage + " was not closed, "
+                            + tracker.mats.size() + " Mats leaked");
+                    tracker.stats.leakedMats += tracker.mats.size();
+                    tracker.releaseAll();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.pokeradvisor;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
+import org.opencv.core.Scalar;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * Draws the HUD with the recognized cards and equity on top of the camera preview.
+ * Only the band at the top of the frame that holds the text is tinted, and the text itself is
+ * rasterized into a cached mask when it changes, so a frame costs one blend and one masked fill
+ * over the band instead of a full-frame overlay allocation and blend. Buffers are reused between
+ * frames; call {@link #draw} from the camera thread only.
+ */
+public final class OverlayRenderer {
+
+    private static final int HUD_HEIGHT = 120;
+    private static final Scalar TINT = new Scalar(0, 255, 0, 255);
+    private static final Scalar TEXT_COLOR = new Scalar(255, 255, 255, 255);
+    private static final Scalar MASK_ON = new Scalar(255);
+    private static final Point FIRST_LINE = new Point(50, 50);
+    private static final Point SECOND_LINE = new Point(50, 100);
+
+    private final MatArena arena = new MatArena("overlay");
+    private final Mat tint = arena.mat();
+    private final Mat textMask = arena.mat();
+    private String firstText;
+    private String secondText;
+
+    /**
+     * Draws two lines of text over a tinted band at the top of an RGBA frame.
+     */
+    public void draw(Mat frame, String first, String second) {
+        int height = Math.min(HUD_HEIGHT, frame.rows());
+        if (tint.rows() != height || tint.cols() != frame.cols() || tint.type() != frame.type()) {
+            tint.create(height, frame.cols(), frame.type());
+            tint.setTo(TINT);
+            textMask.create(height, frame.cols(), CvType.CV_8UC1);
+            firstText = null;
+        }
+        if (!first.equals(firstText) || !second.equals(secondText)) {
+            textMask.setTo(Scalar.all(0));
+            Imgproc.putText(textMask, first, FIRST_LINE, Imgproc.FONT_HERSHEY_SIMPLEX, 1.0, MASK_ON, 2);
+            Imgproc.putText(textMask, second, SECOND_LINE, Imgproc.FONT_HERSHEY_SIMPLEX, 1.0, MASK_ON, 2);
+            firstText = first;
+            secondText = second;
+        }
+
+        try (MatArena scratch = new MatArena("overlay")) {
+            Mat band = scratch.track(frame.submat(new Rect(0, 0, frame.cols(), height)));
+            Core.addWeighted(band, 0.8, tint, 0.2, 0.0, band);
+            band.setTo(TEXT_COLOR, textMask);
+        }
+    }
+
+    public void release() {
+        arena.close();
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.pokeradvisor;
+
+import android.content.res.AssetFileDescriptor;
+import android.content.res.AssetManager;
+import android.util.Log;
+
+import com.example.pokeradvisor.equity.PreflopTable;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Loads the preflop equity tables from the APK on first use.
+ * The asset is stored uncompressed (see noCompress in build.gradle.kts) so it can be memory-mapped
+ * straight out of the APK; if that is not possible it is copied once into a direct buffer.
+ */
+public final class PreflopEquityAsset implements PreflopTable.Loader {
+
+    private static final String TAG = "PokerAdvisor";
+    private static final String ASSET_NAME = "preflop_equity.bin";
+
+    private final AssetManager assets;
+    private volatile PreflopTable table;
+
+    public PreflopEquityAsset(AssetManager assets) {
+        this.assets = assets;
+    }
+
+    @Override
+    public PreflopTable load() throws IOException {
+        PreflopTable loaded = table;
+        if (loaded == null) {
+            synchronized (this) {
+                loaded = table;
+                if (loaded == null) {
+                    loaded = new PreflopTable(mapAsset());
+                    table = loaded;
+                }
+            }
+        }
+        return loaded;
+    }
+
+    private ByteBuffer mapAsset() throws IOException {
+        try (AssetFileDescriptor descriptor = assets.openFd(ASSET_NAME);
+             FileInputStream input = descriptor.createInputStream();
+             FileChannel channel = input.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+                    descriptor.getStartOffset(), descriptor.getDeclaredLength());
+            Log.i(TAG, "Mapped " + ASSET_NAME + " (" + buffer.capacity() + " bytes)");
+            return buffer;
+        } catch (FileNotFoundException e) {
+            // openFd fails for compressed assets; fall back to reading the stream once
+            Log.w(TAG, ASSET_NAME + " is compressed, copying it into memory");
+            try (InputStream input = assets.open(ASSET_NAME)) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(input.available());
+                byte[] chunk = new byte[8192];
+                int read;
+                while ((read = input.read(chunk)) > 0) {
+                    buffer.put(chunk, 0, read);
+                }
+                buffer.flip();
+                return buffer;
+            }
+        }
+    }
+}
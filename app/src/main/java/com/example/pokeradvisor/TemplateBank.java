@@ -0,0 +1,154 @@
+package com.example.pokeradvisor;
+
+import android.content.res.AssetManager;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+
+import org.opencv.android.Utils;
+import org.opencv.core.Mat;
+import org.opencv.imgproc.Imgproc;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Rank and suit corner classifiers, prepared once per activity on a background thread.
+ * {@link #preload()} loads the classifiers saved by an earlier start, or decodes the template
+ * assets to grayscale and trains and saves new ones, so no camera session waits on the asset
+ * decoder or on training, and every analysis pipeline shares the same two models. The templates
+ * are only decoded when training needs them and are freed once it is done. Until loading has
+ * finished, or if no template could be decoded, the classifiers are null.
+ */
+public final class TemplateBank {
+
+    private static final String TAG = "PokerAdvisor";
+
+    public static final String[] RANKS = {"A", "K", "Q", "J", "10", "9", "8", "7", "6", "5", "4", "3", "2"};
+    public static final String[] SUITS = {"h", "s", "d", "c"};
+
+    private final AssetManager assets;
+    private final File modelDirectory;
+    // Decoded templates by name; used on the loading thread only
+    private final MatArena arena = new MatArena("templates");
+    private final Map<String, Mat> templates = new HashMap<>();
+    // Published by the loading thread, guarded by this for writes
+    private volatile CornerClassifier rankClassifier;
+    private volatile CornerClassifier suitClassifier;
+    private volatile boolean released;
+
+    /**
+     * @param modelDirectory where the rank and suit classifiers are saved once trained
+     */
+    public TemplateBank(AssetManager assets, File modelDirectory) {
+        this.assets = assets;
+        this.modelDirectory = modelDirectory;
+    }
+
+    /**
+     * Starts loading the classifiers. OpenCV must be initialized before this is called.
+     */
+    public void preload() {
+        Thread loader = new Thread(this::load, "TemplateBank");
+        loader.setPriority(Thread.MIN_PRIORITY);
+        loader.start();
+    }
+
+    public boolean isReady() {
+        return rankClassifier != null && suitClassifier != null;
+    }
+
+    // Classifier of rank corners, or null while loading
+    public CornerClassifier getRankClassifier() {
+        return rankClassifier;
+    }
+
+    // Classifier of suit corners, or null while loading
+    public CornerClassifier getSuitClassifier() {
+        return suitClassifier;
+    }
+
+    /**
+     * Grayscale template of a rank ("rank_K") or suit ("suit_h"), decoded on first use, or null if
+     * the asset is missing. For training on the loading thread only.
+     */
+    Mat template(String name) {
+        if (!templates.containsKey(name)) {
+            templates.put(name, decode(name));
+        }
+        return templates.get(name);
+    }
+
+    /**
+     * Frees the classifiers; no pipeline may use them afterwards. Does not wait for loading: a
+     * loader that is still training stops after the current classifier and frees what it built.
+     */
+    public void release() {
+        released = true;
+        synchronized (this) {
+            releaseAll(rankClassifier, suitClassifier);
+            rankClassifier = null;
+            suitClassifier = null;
+        }
+    }
+
+    private void load() {
+        long start = System.nanoTime();
+        CornerClassifier rank = null;
+        CornerClassifier suit = null;
+        if (!released) {
+            rank = CornerClassifier.loadOrTrain(modelDirectory, this, "rank_", RANKS, CardDetector.RANK_CORNER.size());
+        }
+        if (!released && rank != null) {
+            suit = CornerClassifier.loadOrTrain(modelDirectory, this, "suit_", SUITS, CardDetector.SUIT_CORNER.size());
+        }
+        // Only training reads the templates
+        templates.clear();
+        arena.close();
+        synchronized (this) {
+            if (released || suit == null) {
+                releaseAll(rank, suit);
+                if (!released) {
+                    Log.w(TAG, "No corner classifiers, cards are only read by OCR");
+                }
+                return;
+            }
+            rankClassifier = rank;
+            suitClassifier = suit;
+        }
+        Log.i(TAG, "Prepared corner classifiers in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    private static void releaseAll(CornerClassifier... classifiers) {
+        for (CornerClassifier classifier : classifiers) {
+            if (classifier != null) {
+                classifier.release();
+            }
+        }
+    }
+
+    private Mat decode(String name) {
+        Bitmap bitmap;
+        try (InputStream input = assets.open(name + ".png")) {
+            bitmap = BitmapFactory.decodeStream(input);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to load template: " + name + ".png");
+            return null;
+        }
+        if (bitmap == null) {
+            Log.w(TAG, "Failed to decode template: " + name + ".png");
+            return null;
+        }
+        Mat gray = arena.mat();
+        try (MatArena scratch = new MatArena("templates")) {
+            Mat rgba = scratch.mat();
+            Utils.bitmapToMat(bitmap, rgba);
+            bitmap.recycle();
+            Imgproc.cvtColor(rgba, gray, Imgproc.COLOR_RGBA2GRAY);
+        }
+        return gray;
+    }
+}
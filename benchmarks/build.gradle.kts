@@ -0,0 +1,23 @@
+plugins {
+    id("java")
+    id("me.champeau.jmh")
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    jmh(project(":core"))
+}
+
+jmh {
+    jmhVersion.set("1.37")
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    // The gc profiler adds gc.alloc.rate and gc.alloc.rate.norm (bytes per op) next to ops/s
+    profilers.add("gc")
+    resultFormat.set("JSON")
+}
@@ -0,0 +1,57 @@
+package com.example.pokeradvisor.benchmarks;
+
+import com.example.pokeradvisor.eval.Card;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.regex.Pattern;
+
+/**
+ * Card-token recognition on a mix of OCR block texts: the app's card regex
+ * ({@code AnalysisPipeline.CARD_TEXT}) compiled on every call by {@link String#matches}, the same
+ * regex precompiled as the app uses it, and {@link Card#parse}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+public class CardParsingBenchmark {
+
+    // Copy of AnalysisPipeline.CARD_TEXT in the Android app, which this module cannot depend on;
+    // keep the two in sync
+    private static final String CARD_PATTERN = "^[AKQJ10][hscd]$|^[2-9][hscd]$";
+    private static final Pattern COMPILED = Pattern.compile(CARD_PATTERN);
+
+    private static final String[] TOKENS = {
+            "Ah", "Kd", "10s", "7c", "Qh", "POT", "2s", "Js", "$1,250", "Td",
+            "9h", "Fold", "3c", "Raise", "8d", "A", "5s", "Call 40", "Kh", "6c",
+    };
+
+    @Benchmark
+    @OperationsPerInvocation(20)
+    public void stringMatches(Blackhole blackhole) {
+        for (String token : TOKENS) {
+            blackhole.consume(token.matches(CARD_PATTERN));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(20)
+    public void compiledPattern(Blackhole blackhole) {
+        for (String token : TOKENS) {
+            blackhole.consume(COMPILED.matcher(token).matches());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(20)
+    public void cardParse(Blackhole blackhole) {
+        for (String token : TOKENS) {
+            blackhole.consume(Card.parse(token));
+        }
+    }
+}
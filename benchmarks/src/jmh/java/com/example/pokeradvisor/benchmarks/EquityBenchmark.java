@@ -0,0 +1,105 @@
+package com.example.pokeradvisor.benchmarks;
+
+import com.example.pokeradvisor.equity.EquityResult;
+import com.example.pokeradvisor.equity.ExactEquity;
+import com.example.pokeradvisor.equity.MonteCarloEquity;
+import com.example.pokeradvisor.equity.RangeEquity;
+import com.example.pokeradvisor.eval.Card;
+import com.example.pokeradvisor.range.Range;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Complete equity calculations as the camera pipeline issues them. Monte Carlo runs a fixed
+ * number of deals so results compare across machines regardless of the time budget.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class EquityBenchmark {
+
+    private static final int MONTE_CARLO_SAMPLES = 100_000;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    @Param({"1", "2"})
+    public int opponents;
+
+    private ForkJoinPool pool;
+    private MonteCarloEquity monteCarlo;
+    private ExactEquity exact;
+    private RangeEquity rangeEquity;
+    private int[] hole;
+    private int[] flop;
+    private int[] turn;
+    private Range villainRange;
+    private Range heroRange;
+    private Range tightRange;
+    private int[] dryFlop;
+
+    @Setup
+    public void setUp() {
+        pool = new ForkJoinPool(parallelism);
+        monteCarlo = new MonteCarloEquity(pool);
+        monteCarlo.setSeed(1);
+        monteCarlo.setSampleLimits(MONTE_CARLO_SAMPLES, MONTE_CARLO_SAMPLES);
+        monteCarlo.setTargetHalfWidth(0);
+        monteCarlo.setTimeBudget(TimeUnit.MINUTES.toMillis(1));
+        exact = new ExactEquity(pool);
+        rangeEquity = new RangeEquity(pool);
+        rangeEquity.setSeed(1);
+
+        hole = cards("Ah", "Kd");
+        flop = cards("Qh", "7h", "2c");
+        turn = cards("Qh", "7h", "2c", "Ts");
+        villainRange = Range.parse("22+,A2s+,KTs+,QTs+,JTs,ATo+,KQo");
+        heroRange = Range.parse("22+, A2s+, KTo+").scale(0.6f);
+        tightRange = Range.parse("TT+, AQs+, AKo, KQs:0.5");
+        dryFlop = cards("Kd", "7s", "2c");
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public EquityResult monteCarloFlop() {
+        return monteCarlo.calculate(hole, flop, opponents);
+    }
+
+    @Benchmark
+    public EquityResult exactTurn() {
+        return exact.calculate(hole, turn, opponents);
+    }
+
+    @Benchmark
+    public EquityResult handVsRangeFlop() {
+        return rangeEquity.handVsRange(hole, villainRange, flop);
+    }
+
+    @Benchmark
+    public EquityResult rangeVsRangeFlop() {
+        return rangeEquity.rangeVsRange(heroRange, tightRange, dryFlop);
+    }
+
+    private static int[] cards(String... names) {
+        int[] cards = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            cards[i] = Card.parse(names[i]);
+        }
+        return cards;
+    }
+}
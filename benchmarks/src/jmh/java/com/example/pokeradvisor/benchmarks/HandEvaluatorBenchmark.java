@@ -0,0 +1,53 @@
+package com.example.pokeradvisor.benchmarks;
+
+import com.example.pokeradvisor.eval.Card;
+import com.example.pokeradvisor.eval.HandEvaluator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Hand evaluation throughput over a fixed set of random 5-, 6- and 7-card hands.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+public class HandEvaluatorBenchmark {
+
+    private static final int HANDS = 4_096;
+
+    @Param({"5", "6", "7"})
+    public int cards;
+
+    private long[] hands;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        hands = new long[HANDS];
+        for (int i = 0; i < HANDS; i++) {
+            long mask = 0;
+            while (Long.bitCount(mask) < cards) {
+                mask |= Card.mask(random.nextInt(Card.COUNT));
+            }
+            hands[i] = mask;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(HANDS)
+    public int evaluate() {
+        int sum = 0;
+        for (long hand : hands) {
+            sum += HandEvaluator.evaluate(hand);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.pokeradvisor.benchmarks;
+
+import com.example.pokeradvisor.eval.Card;
+import com.example.pokeradvisor.eval.OutsAnalyzer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outs analysis of a flush draw, with every turn and river pair on the flop.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OutsBenchmark {
+
+    @Param({"Qh 7h 2c", "Qh 7h 2c 3d"})
+    public String board;
+
+    private long heroMask;
+    private long boardMask;
+
+    @Setup
+    public void setUp() {
+        heroMask = mask("Ah Kh");
+        boardMask = mask(board);
+    }
+
+    @Benchmark
+    public OutsAnalyzer.Outs analyze() {
+        return OutsAnalyzer.analyze(heroMask, boardMask);
+    }
+
+    private static long mask(String cards) {
+        long mask = 0;
+        for (String token : cards.split(" ")) {
+            mask |= Card.mask(Card.parse(token));
+        }
+        return mask;
+    }
+}
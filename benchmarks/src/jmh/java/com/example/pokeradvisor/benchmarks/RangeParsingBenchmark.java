@@ -0,0 +1,30 @@
+package com.example.pokeradvisor.benchmarks;
+
+import com.example.pokeradvisor.range.Range;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Range text parsing, from a short opening range to a long weighted calling range.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+public class RangeParsingBenchmark {
+
+    @Param({
+            "QQ+,AKs,AKo",
+            "22+,A2s+,K9s+,Q9s+,J9s+,T9s,98s,87s,76s,ATo+,KJo+,QJo",
+            "TT-22:0.5,AQs-A2s,KQs:0.75,KJs-K9s:0.5,QJs,JTs,T9s:0.25,AKo,AQo:0.5,AhKh,AsKs:0.1",
+    })
+    public String text;
+
+    @Benchmark
+    public Range parse() {
+        return Range.parse(text);
+    }
+}
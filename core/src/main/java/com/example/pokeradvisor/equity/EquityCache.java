@@ -0,0 +1,152 @@
+package com.example.pokeradvisor.equity;
+
+import com.example.pokeradvisor.eval.Card;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of equity results keyed by suit-canonical spots.
+ * A key packs hero's cards, the board and the opponent count (or a range id) into 64 bits after
+ * relabelling suits to the smallest equivalent masks, so spots that differ only by a suit
+ * permutation, like AhKh on Qh7h2c and AsKs on Qs7s2d, share one entry.
+ * Key layout from the low bits: hero's two cards and five board slots of 6 bits each
+ * (card + 1, 0 for an empty slot), then the opponent count, or {@link #RANGE_FLAG} plus a range id.
+ */
+public final class EquityCache {
+
+    public static final int MAX_RANGE_ID = (1 << 21) - 1;
+    // Rough heap cost of one entry: map node, boxed key and the result object
+    public static final int BYTES_PER_ENTRY = 48 + 16 + 56;
+
+    private static final int CARD_BITS = 6;
+    private static final int SLOTS = 2 + EquityInputs.BOARD_SIZE;
+    private static final int TAG_SHIFT = CARD_BITS * SLOTS;
+    private static final long RANGE_FLAG = 1L << (TAG_SHIFT + 21);
+    private static final int[] SUIT_PERMUTATIONS = ExactEquity.symmetries(0, 0);
+
+    private final int capacity;
+    private final LinkedHashMap<Long, EquityResult> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public EquityCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive, got " + capacity);
+        }
+        this.capacity = capacity;
+        entries = new LinkedHashMap<Long, EquityResult>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, EquityResult> eldest) {
+                if (size() > EquityCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Key of hero's cards and the board against random hands.
+     * @throws IllegalArgumentException if the cards or opponent count are invalid
+     */
+    public static long key(int[] hole, int[] board, int opponents) {
+        EquityInputs.knownCards(hole, board, opponents);
+        return canonical(hole, board, true) | (long) opponents << TAG_SHIFT;
+    }
+
+    /**
+     * Key of hero's cards and the board against the range with the given id. Suits are only
+     * canonicalized for ranges that every suit permutation maps onto themselves, see
+     * {@link com.example.pokeradvisor.range.Range#isSuitSymmetric()}.
+     */
+    public static long rangeKey(int[] hole, int[] board, int rangeId, boolean suitSymmetric) {
+        if (rangeId < 0 || rangeId > MAX_RANGE_ID) {
+            throw new IllegalArgumentException("Range id must be between 0 and " + MAX_RANGE_ID + ", got " + rangeId);
+        }
+        EquityInputs.knownCards(hole, board, 1);
+        return canonical(hole, board, suitSymmetric) | RANGE_FLAG | (long) rangeId << TAG_SHIFT;
+    }
+
+    public synchronized EquityResult get(long key) {
+        EquityResult result = entries.get(key);
+        if (result != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return result;
+    }
+
+    public synchronized void put(long key, EquityResult result) {
+        entries.put(key, result);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    // Estimated heap footprint of the cached entries
+    public synchronized long getEstimatedBytes() {
+        return (long) entries.size() * BYTES_PER_ENTRY;
+    }
+
+    // Packs the cards after the suit permutation that minimizes hero's mask, then the board mask
+    private static long canonical(int[] hole, int[] board, boolean canonicalize) {
+        long heroMask = Card.mask(hole, hole.length);
+        long boardMask = Card.mask(board, board.length);
+        if (canonicalize) {
+            long bestHero = heroMask;
+            long bestBoard = boardMask;
+            for (int permutation : SUIT_PERMUTATIONS) {
+                long hero = ExactEquity.permute(heroMask, permutation);
+                long boardCards = ExactEquity.permute(boardMask, permutation);
+                if (hero < bestHero || (hero == bestHero && boardCards < bestBoard)) {
+                    bestHero = hero;
+                    bestBoard = boardCards;
+                }
+            }
+            heroMask = bestHero;
+            boardMask = bestBoard;
+        }
+        long packed = packCards(heroMask, 0);
+        return packed | packCards(boardMask, 2 * CARD_BITS);
+    }
+
+    private static long packCards(long mask, int shift) {
+        long packed = 0;
+        for (long rest = mask; rest != 0; rest &= rest - 1) {
+            int card = Card.fromBit(Long.numberOfTrailingZeros(rest));
+            packed |= (long) (card + 1) << shift;
+            shift += CARD_BITS;
+        }
+        return packed;
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.pokeradvisor.equity;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Asynchronous front end of the equity calculators for the camera pipeline.
+ * Requests are queued on a single coordinator thread that drives the fork-join workers, so callers
+ * never block. A newer request cancels the one still running; its listener is not called.
+ * Preflop spots are read from the precomputed {@link PreflopTable} when a loader is set; later
+ * spots whose enumeration is below the exact threshold are enumerated, the rest are sampled.
+ * Postflop work is kept by {@link IncrementalEquity}, so a new turn or river card refines the
+ * previous street instead of starting from scratch. Results are kept in an {@link EquityCache},
+ * so a spot seen before, in any suit relabelling, is answered without calculating.
+ */
+public final class EquityEngine {
+
+    public interface Listener {
+        /**
+         * Called on the coordinator thread when the equity for a request is known.
+         */
+        void onEquity(int[] hole, int[] board, int opponents, EquityResult result);
+    }
+
+    private final ForkJoinPool pool;
+    private final ExecutorService coordinator;
+    private final MonteCarloEquity monteCarlo;
+    private final ExactEquity exact;
+    private final IncrementalEquity incremental;
+    private final EquityCache cache = new EquityCache(4_096);
+    private volatile long exactThreshold = 5_000_000;
+    private volatile PreflopTable.Loader preflopLoader;
+    private Future<?> pending;
+
+    public EquityEngine() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public EquityEngine(int parallelism) {
+        pool = new ForkJoinPool(parallelism);
+        coordinator = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "EquityCoordinator"));
+        monteCarlo = new MonteCarloEquity(pool);
+        exact = new ExactEquity(pool);
+        incremental = new IncrementalEquity(exact, monteCarlo);
+        incremental.setExactThreshold(exactThreshold);
+    }
+
+    public MonteCarloEquity getMonteCarlo() {
+        return monteCarlo;
+    }
+
+    public EquityCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Sets the largest {@link ExactEquity#estimateWork} value that is still enumerated exactly.
+     */
+    public void setExactThreshold(long work) {
+        exactThreshold = work;
+        incremental.setExactThreshold(work);
+    }
+
+    /**
+     * Sets where preflop tables come from. The loader is called on the first preflop request.
+     */
+    public void setPreflopLoader(PreflopTable.Loader loader) {
+        preflopLoader = loader;
+    }
+
+    /**
+     * Calculates equity on the calling thread, enumerating when the spot is small enough.
+     */
+    public EquityResult calculate(int[] hole, int[] board, int opponents) {
+        PreflopTable.Loader loader = preflopLoader;
+        if (board.length == 0 && loader != null) {
+            EquityInputs.knownCards(hole, board, opponents);
+            try {
+                PreflopTable table = loader.load();
+                if (opponents <= table.getMaxOpponents()) {
+                    return table.lookup(hole, opponents);
+                }
+            } catch (IOException e) {
+                // Without tables preflop equity is simulated like any other street
+                preflopLoader = null;
+            }
+        }
+        long key = EquityCache.key(hole, board, opponents);
+        EquityResult result = cache.get(key);
+        if (result == null) {
+            result = compute(hole, board, opponents);
+            // A cancelled simulation stops early, so its result is not worth keeping
+            if (!Thread.currentThread().isInterrupted()) {
+                cache.put(key, result);
+            }
+        }
+        return result;
+    }
+
+    private EquityResult compute(int[] hole, int[] board, int opponents) {
+        if (board.length >= 3) {
+            return incremental.update(hole, board, opponents);
+        }
+        if (ExactEquity.estimateWork(board.length, opponents) <= exactThreshold) {
+            return exact.calculate(hole, board, opponents);
+        }
+        return monteCarlo.calculate(hole, board, opponents);
+    }
+
+    /**
+     * Schedules an equity calculation, replacing any request that has not finished yet.
+     * @throws IllegalArgumentException if the cards or opponent count are invalid
+     */
+    public synchronized void requestEquity(int[] hole, int[] board, int opponents, Listener listener) {
+        EquityInputs.knownCards(hole, board, opponents);
+        final int[] heroCards = hole.clone();
+        final int[] boardCards = board.clone();
+
+        if (pending != null) {
+            pending.cancel(true);
+        }
+        pending = coordinator.submit(() -> {
+            EquityResult result = calculate(heroCards, boardCards, opponents);
+            if (!Thread.currentThread().isInterrupted()) {
+                listener.onEquity(heroCards, boardCards, opponents, result);
+            }
+        });
+    }
+
+    public synchronized void shutdown() {
+        coordinator.shutdownNow();
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.pokeradvisor.equity;
+
+import com.example.pokeradvisor.eval.Card;
+
+/**
+ * Validation shared by the equity calculators.
+ */
+final class EquityInputs {
+
+    static final int MAX_OPPONENTS = 9;
+    static final int BOARD_SIZE = 5;
+
+    private EquityInputs() {
+    }
+
+    // Returns the mask of hero and board cards, rejecting malformed or duplicated cards
+    static long knownCards(int[] hole, int[] board, int opponents) {
+        if (hole.length != 2) {
+            throw new IllegalArgumentException("Hero needs exactly two hole cards, got " + hole.length);
+        }
+        if (board.length > BOARD_SIZE) {
+            throw new IllegalArgumentException("Board has " + board.length + " cards");
+        }
+        if (opponents < 1 || opponents > MAX_OPPONENTS) {
+            throw new IllegalArgumentException("Opponents must be between 1 and " + MAX_OPPONENTS + ", got " + opponents);
+        }
+        return addCards(addCards(0, hole), board);
+    }
+
+    static long addCards(long mask, int[] cards) {
+        for (int card : cards) {
+            if (card < 0 || card >= Card.COUNT) {
+                throw new IllegalArgumentException("Invalid card " + card);
+            }
+            long bit = Card.mask(card);
+            if ((mask & bit) != 0) {
+                throw new IllegalArgumentException("Duplicate card " + Card.toString(card));
+            }
+            mask |= bit;
+        }
+        return mask;
+    }
+
+    // Cards not in the mask, in card order
+    static int[] remainingDeck(long deadMask) {
+        int[] deck = new int[Card.COUNT - Long.bitCount(deadMask)];
+        int size = 0;
+        for (int card = 0; card < Card.COUNT; card++) {
+            if ((deadMask & Card.mask(card)) == 0) {
+                deck[size++] = card;
+            }
+        }
+        return deck;
+    }
+}
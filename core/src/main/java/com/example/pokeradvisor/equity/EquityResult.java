@@ -0,0 +1,57 @@
+package com.example.pokeradvisor.equity;
+
+import java.util.Locale;
+
+/**
+ * Hero's share of the pot against the opponents, averaged over the evaluated deals.
+ * Ties count as a split pot, so {@code equity = win + tie share}.
+ */
+public final class EquityResult {
+
+    private final double equity;
+    private final double win;
+    private final double tie;
+    private final long samples;
+    private final double standardError;
+    private final boolean exact;
+
+    public EquityResult(double equity, double win, double tie, long samples, double standardError, boolean exact) {
+        this.equity = equity;
+        this.win = win;
+        this.tie = tie;
+        this.samples = samples;
+        this.standardError = standardError;
+        this.exact = exact;
+    }
+
+    public double getEquity() {
+        return equity;
+    }
+
+    // Fraction of deals hero wins outright
+    public double getWin() {
+        return win;
+    }
+
+    // Fraction of deals hero splits
+    public double getTie() {
+        return tie;
+    }
+
+    public long getSamples() {
+        return samples;
+    }
+
+    public double getStandardError() {
+        return standardError;
+    }
+
+    public boolean isExact() {
+        return exact;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%.1f%%%s", equity * 100, exact ? "" : String.format(Locale.US, " +/-%.1f", 196 * standardError));
+    }
+}
@@ -0,0 +1,293 @@
+package com.example.pokeradvisor.equity;
+
+import com.example.pokeradvisor.eval.Card;
+import com.example.pokeradvisor.eval.HandEvaluator;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Computes hero equity against random hands by enumerating every runout and every opponent deal.
+ * Runouts are enumerated up to suit isomorphism: permutations of suits that leave hero's cards
+ * and the board unchanged cannot change the result, so only one runout per orbit is evaluated
+ * and weighted by the orbit size. With four interchangeable suits this removes up to 24x work.
+ * Use {@link #estimateWork} to decide whether a spot is small enough to enumerate.
+ */
+public final class ExactEquity {
+
+    private static final int[][] SUIT_PERMUTATIONS = allSuitPermutations();
+    private static final int MIN_RUNOUTS_PER_TASK = 16;
+
+    private final ForkJoinPool pool;
+
+    public ExactEquity(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Upper bound on the hand evaluations and opponent deals visited for a spot, before
+     * isomorphism reduction. Grows quickly with fewer board cards and more opponents.
+     */
+    public static long estimateWork(int boardCards, int opponents) {
+        int unknown = Card.COUNT - 2 - boardCards;
+        int runoutCards = EquityInputs.BOARD_SIZE - boardCards;
+        int remaining = unknown - runoutCards;
+        return choose(unknown, runoutCards) * (choose(remaining, 2) + deals(remaining, opponents));
+    }
+
+    public EquityResult calculate(int[] hole, int[] board, int opponents) {
+        long heroMask = Card.mask(hole, hole.length);
+        long boardMask = EquityInputs.knownCards(hole, board, opponents) & ~heroMask;
+        return enumerate(heroMask, boardMask, opponents, null);
+    }
+
+    /**
+     * Enumerates all deals, filling in the result of every individual runout when a table is given.
+     * Runout tables need a board of at least three cards.
+     */
+    EquityResult enumerate(long heroMask, long boardMask, int opponents, RunoutTable runoutTable) {
+        int[] symmetries = symmetries(heroMask, boardMask);
+        int runoutCards = EquityInputs.BOARD_SIZE - Long.bitCount(boardMask);
+        int[] deck = EquityInputs.remainingDeck(heroMask | boardMask);
+
+        int capacity = (int) Math.min(choose(deck.length, runoutCards), Integer.MAX_VALUE);
+        long[] runouts = new long[capacity];
+        int[] weights = new int[capacity];
+        int count = collectRunouts(deck, 0, runoutCards, 0, symmetries, runouts, weights, 0);
+
+        SampleStats stats = pool.invoke(new RunoutTask(heroMask, boardMask, opponents, symmetries,
+                runouts, weights, 0, count, runoutTable));
+        return stats.toExactResult();
+    }
+
+    // Adds every canonical runout of the given size to the arrays and returns the new count
+    private static int collectRunouts(int[] deck, int from, int cardsLeft, long runout, int[] symmetries,
+                                      long[] runouts, int[] weights, int count) {
+        if (cardsLeft == 0) {
+            int weight = orbitSize(runout, symmetries);
+            if (weight > 0) {
+                runouts[count] = runout;
+                weights[count] = weight;
+                count++;
+            }
+            return count;
+        }
+        for (int i = from; i <= deck.length - cardsLeft; i++) {
+            count = collectRunouts(deck, i + 1, cardsLeft - 1, runout | Card.mask(deck[i]),
+                    symmetries, runouts, weights, count);
+        }
+        return count;
+    }
+
+    // Size of the runout's orbit if it is the smallest mask in it, otherwise 0
+    private static int orbitSize(long runout, int[] symmetries) {
+        int fixed = 0;
+        for (int permutation : symmetries) {
+            long image = permute(runout, permutation);
+            if (image < runout) {
+                return 0;
+            }
+            if (image == runout) {
+                fixed++;
+            }
+        }
+        return symmetries.length / fixed;
+    }
+
+    // Suit permutations, packed as 2-bit target suits, that map hero and board cards onto themselves
+    static int[] symmetries(long heroMask, long boardMask) {
+        int[] found = new int[SUIT_PERMUTATIONS.length];
+        int count = 0;
+        for (int[] permutation : SUIT_PERMUTATIONS) {
+            int packed = 0;
+            for (int suit = 0; suit < Card.SUITS; suit++) {
+                packed |= permutation[suit] << (2 * suit);
+            }
+            if (permute(heroMask, packed) == heroMask && permute(boardMask, packed) == boardMask) {
+                found[count++] = packed;
+            }
+        }
+        int[] symmetries = new int[count];
+        System.arraycopy(found, 0, symmetries, 0, count);
+        return symmetries;
+    }
+
+    static long permute(long mask, int permutation) {
+        long result = 0;
+        for (int suit = 0; suit < Card.SUITS; suit++) {
+            long lane = (mask >>> (16 * suit)) & 0x1FFF;
+            result |= lane << (16 * ((permutation >>> (2 * suit)) & 3));
+        }
+        return result;
+    }
+
+    private static int[][] allSuitPermutations() {
+        int[][] permutations = new int[24][];
+        int count = 0;
+        for (int a = 0; a < 4; a++)
+            for (int b = 0; b < 4; b++)
+                for (int c = 0; c < 4; c++) {
+                    int d = 6 - a - b - c;
+                    if (a != b && a != c && b != c && d != a && d != b && d != c) {
+                        permutations[count++] = new int[]{a, b, c, d};
+                    }
+                }
+        return permutations;
+    }
+
+    static long choose(int n, int k) {
+        if (k < 0 || k > n) {
+            return 0;
+        }
+        long result = 1;
+        for (int i = 1; i <= k; i++) {
+            result = result * (n - k + i) / i;
+        }
+        return result;
+    }
+
+    // Number of ways to deal two cards to each of the opponents, in seat order
+    static long deals(int cards, int opponents) {
+        long result = 1;
+        for (int i = 0; i < opponents; i++) {
+            result *= choose(cards - 2 * i, 2);
+        }
+        return result;
+    }
+
+    private static final class RunoutTask extends RecursiveTask<SampleStats> {
+
+        private final long heroMask;
+        private final long boardMask;
+        private final int opponents;
+        private final int[] symmetries;
+        private final long[] runouts;
+        private final int[] weights;
+        private final int from;
+        private final int to;
+        private final RunoutTable runoutTable;
+
+        RunoutTask(long heroMask, long boardMask, int opponents, int[] symmetries,
+                   long[] runouts, int[] weights, int from, int to, RunoutTable runoutTable) {
+            this.heroMask = heroMask;
+            this.boardMask = boardMask;
+            this.opponents = opponents;
+            this.symmetries = symmetries;
+            this.runouts = runouts;
+            this.weights = weights;
+            this.from = from;
+            this.to = to;
+            this.runoutTable = runoutTable;
+        }
+
+        @Override
+        protected SampleStats compute() {
+            if (to - from > MIN_RUNOUTS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                RunoutTask left = new RunoutTask(heroMask, boardMask, opponents, symmetries,
+                        runouts, weights, from, middle, runoutTable);
+                RunoutTask right = new RunoutTask(heroMask, boardMask, opponents, symmetries,
+                        runouts, weights, middle, to, runoutTable);
+                left.fork();
+                SampleStats stats = right.compute();
+                stats.add(left.join());
+                return stats;
+            }
+
+            SampleStats stats = new SampleStats();
+            OpponentEnumerator opponentsEnumerator = new OpponentEnumerator(opponents);
+            if (runoutTable == null) {
+                for (int i = from; i < to; i++) {
+                    opponentsEnumerator.run(heroMask, boardMask | runouts[i], weights[i], stats);
+                }
+                return stats;
+            }
+
+            // Scratch reused across the task's runouts
+            SampleStats runoutStats = new SampleStats();
+            long[] images = new long[symmetries.length];
+            for (int i = from; i < to; i++) {
+                runoutStats.clear();
+                opponentsEnumerator.run(heroMask, boardMask | runouts[i], 1, runoutStats);
+                stats.add(runoutStats, weights[i]);
+                // Every runout of the orbit has the same result; orbits never share a cell
+                int imageCount = 0;
+                for (int permutation : symmetries) {
+                    long image = permute(runouts[i], permutation);
+                    boolean seen = false;
+                    for (int j = 0; j < imageCount && !seen; j++) {
+                        seen = images[j] == image;
+                    }
+                    if (!seen) {
+                        images[imageCount++] = image;
+                        runoutTable.add(RunoutTable.cellOf(image), runoutStats);
+                    }
+                }
+            }
+            return stats;
+        }
+    }
+
+    /**
+     * Deals every combination of opponent hands for one complete board. Opponent hand values are
+     * evaluated once per board and reused across seats.
+     */
+    static final class OpponentEnumerator {
+
+        private final int opponents;
+        private final long[] comboMasks = new long[1326];
+        private final int[] comboValues = new int[1326];
+        private int comboCount;
+        private int heroValue;
+        private long weight;
+        private SampleStats stats;
+
+        OpponentEnumerator(int opponents) {
+            this.opponents = opponents;
+        }
+
+        void run(long heroMask, long board, long weight, SampleStats stats) {
+            this.heroValue = HandEvaluator.evaluate(heroMask | board);
+            this.weight = weight;
+            this.stats = stats;
+
+            long dead = heroMask | board;
+            comboCount = 0;
+            for (int first = 0; first < Card.COUNT; first++) {
+                long firstMask = Card.mask(first);
+                if ((dead & firstMask) != 0) {
+                    continue;
+                }
+                for (int second = first + 1; second < Card.COUNT; second++) {
+                    long secondMask = Card.mask(second);
+                    if ((dead & secondMask) != 0) {
+                        continue;
+                    }
+                    comboMasks[comboCount] = firstMask | secondMask;
+                    comboValues[comboCount] = HandEvaluator.evaluate(board | firstMask | secondMask);
+                    comboCount++;
+                }
+            }
+            seat(0, dead, 0, Card.COUNT - Long.bitCount(dead));
+        }
+
+        private void seat(int seat, long dead, int tied, int cardsLeft) {
+            if (seat == opponents) {
+                stats.add(1.0 / (tied + 1), tied > 0, weight);
+                return;
+            }
+            long completions = deals(cardsLeft - 2, opponents - seat - 1);
+            for (int i = 0; i < comboCount; i++) {
+                if ((comboMasks[i] & dead) != 0) {
+                    continue;
+                }
+                int value = comboValues[i];
+                if (value > heroValue) {
+                    stats.add(0, false, weight * completions);
+                } else {
+                    seat(seat + 1, dead | comboMasks[i], value == heroValue ? tied + 1 : tied, cardsLeft - 2);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.pokeradvisor.equity;
+
+/**
+ * Small non-thread-safe xorshift generator; every simulation task owns one.
+ */
+final class FastRandom {
+
+    private long state;
+
+    FastRandom(long seed) {
+        // SplitMix64 scramble so that consecutive seeds give unrelated streams
+        long z = seed + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        state = (z ^ (z >>> 31)) | 1;
+    }
+
+    long nextLong() {
+        long x = state;
+        x ^= x << 13;
+        x ^= x >>> 7;
+        x ^= x << 17;
+        state = x;
+        return x;
+    }
+
+    // Uniform int in [0, bound) using a multiply-shift range reduction
+    int nextInt(int bound) {
+        return (int) (((nextLong() >>> 32) * bound) >>> 32);
+    }
+}
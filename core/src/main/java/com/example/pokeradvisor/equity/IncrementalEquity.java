@@ -0,0 +1,100 @@
+package com.example.pokeradvisor.equity;
+
+import com.example.pokeradvisor.eval.Card;
+
+/**
+ * Keeps the work of one hand across streets so turn and river updates reuse the flop.
+ * The flop result is kept per runout in a {@link RunoutTable}; when the turn or river card
+ * arrives, the deals that already contain it are the new street's equity. Enumerated tables
+ * answer the next street directly, sampled tables are topped up until the usual stopping rule
+ * of {@link MonteCarloEquity} holds again. Any other change of cards starts over.
+ */
+public final class IncrementalEquity {
+
+    private final ExactEquity exact;
+    private final MonteCarloEquity monteCarlo;
+    private volatile long exactThreshold = 5_000_000;
+
+    // Street state, guarded by this
+    private long heroMask;
+    private long boardMask;
+    private int opponents;
+    private RunoutTable runouts;
+    private boolean exactRunouts;
+
+    public IncrementalEquity(ExactEquity exact, MonteCarloEquity monteCarlo) {
+        this.exact = exact;
+        this.monteCarlo = monteCarlo;
+    }
+
+    /**
+     * Sets the largest {@link ExactEquity#estimateWork} value that is still enumerated exactly.
+     */
+    public void setExactThreshold(long work) {
+        exactThreshold = work;
+    }
+
+    public synchronized void reset() {
+        runouts = null;
+    }
+
+    /**
+     * Calculates equity for the current street, reusing the previous street when the board only grew.
+     */
+    public synchronized EquityResult update(int[] hole, int[] board, int opponents) {
+        long hero = Card.mask(hole, hole.length);
+        long known = EquityInputs.knownCards(hole, board, opponents) & ~hero;
+
+        boolean sameHand = runouts != null && hero == heroMask && opponents == this.opponents;
+        long added = known & ~boardMask;
+        if (sameHand && (known & boardMask) == boardMask && added != 0) {
+            return nextStreet(hero, known, added, opponents);
+        }
+
+        runouts = null;
+        if (board.length < 3 || board.length == EquityInputs.BOARD_SIZE) {
+            // Nothing later streets could reuse
+            return calculate(hero, known, board.length, opponents, null);
+        }
+        RunoutTable table = new RunoutTable();
+        EquityResult result = calculate(hero, known, board.length, opponents, table);
+        remember(hero, known, opponents, table, result.isExact());
+        return result;
+    }
+
+    private EquityResult nextStreet(long hero, long known, long added, int opponents) {
+        SampleStats prior = runouts.statsFor(added);
+        if (exactRunouts) {
+            if (Long.bitCount(added) == 1 && Long.bitCount(known) < EquityInputs.BOARD_SIZE) {
+                remember(hero, known, opponents, runouts.conditionOn(Card.fromBit(Long.numberOfTrailingZeros(added))), true);
+            } else {
+                runouts = null;
+            }
+            return prior.toExactResult();
+        }
+
+        if (Long.bitCount(known) == EquityInputs.BOARD_SIZE) {
+            runouts = null;
+            return monteCarlo.simulate(hero, known, opponents, prior, null);
+        }
+        RunoutTable table = runouts.conditionOn(Card.fromBit(Long.numberOfTrailingZeros(added)));
+        EquityResult result = monteCarlo.simulate(hero, known, opponents, prior, table);
+        remember(hero, known, opponents, table, false);
+        return result;
+    }
+
+    private EquityResult calculate(long hero, long known, int boardCards, int opponents, RunoutTable table) {
+        if (ExactEquity.estimateWork(boardCards, opponents) <= exactThreshold) {
+            return exact.enumerate(hero, known, opponents, table);
+        }
+        return monteCarlo.simulate(hero, known, opponents, null, table);
+    }
+
+    private void remember(long hero, long board, int opponents, RunoutTable table, boolean enumerated) {
+        this.heroMask = hero;
+        this.boardMask = board;
+        this.opponents = opponents;
+        this.runouts = table;
+        this.exactRunouts = enumerated;
+    }
+}
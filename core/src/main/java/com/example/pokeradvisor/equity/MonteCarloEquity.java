@@ -0,0 +1,186 @@
+package com.example.pokeradvisor.equity;
+
+import com.example.pokeradvisor.eval.Card;
+import com.example.pokeradvisor.eval.HandEvaluator;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Estimates hero equity against 1-9 random hands by sampling deals on a fork-join pool.
+ * Sampling runs in rounds; every round splits into one task per worker, and each task owns its
+ * random generator and deck so workers never share mutable state. Rounds stop as soon as the
+ * 95% confidence interval is narrower than the target, the sample cap is reached, the time
+ * budget is spent or the calling thread is interrupted.
+ */
+public final class MonteCarloEquity {
+
+    public static final int MAX_OPPONENTS = EquityInputs.MAX_OPPONENTS;
+
+    private static final double Z_95 = 1.96;
+
+    private final ForkJoinPool pool;
+    private final AtomicLong seeds = new AtomicLong(System.nanoTime());
+    private volatile double targetHalfWidth = 0.005;
+    private volatile long minSamples = 5_000;
+    private volatile long maxSamples = 2_000_000;
+    private volatile long timeBudgetNanos = TimeUnit.MILLISECONDS.toNanos(80);
+    private volatile int samplesPerTask = 2_048;
+
+    public MonteCarloEquity(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Sets the 95% confidence half width (in equity, e.g. 0.005 for +/-0.5%) at which sampling stops.
+     */
+    public void setTargetHalfWidth(double halfWidth) {
+        targetHalfWidth = halfWidth;
+    }
+
+    public void setSampleLimits(long min, long max) {
+        minSamples = min;
+        maxSamples = max;
+    }
+
+    public void setTimeBudget(long millis) {
+        timeBudgetNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    public void setSamplesPerTask(int samples) {
+        samplesPerTask = samples;
+    }
+
+    public void setSeed(long seed) {
+        seeds.set(seed);
+    }
+
+    public EquityResult calculate(int[] hole, int[] board, int opponents) {
+        long heroMask = Card.mask(hole, hole.length);
+        long boardMask = EquityInputs.knownCards(hole, board, opponents) & ~heroMask;
+        return simulate(heroMask, boardMask, opponents, null, null);
+    }
+
+    /**
+     * Samples deals on top of the deals already in {@code prior}, if any, and records the new
+     * deals per runout into {@code runouts} when one is given.
+     */
+    EquityResult simulate(long heroMask, long boardMask, int opponents, SampleStats prior, RunoutTable runouts) {
+        int tasks = pool.getParallelism();
+        RunoutTable[] taskRunouts = null;
+        if (runouts != null) {
+            taskRunouts = new RunoutTable[tasks];
+            for (int i = 0; i < tasks; i++) {
+                taskRunouts[i] = new RunoutTable();
+            }
+        }
+
+        long start = System.nanoTime();
+        SampleStats total = new SampleStats();
+        if (prior != null) {
+            total.add(prior);
+        }
+        while (total.samples < maxSamples
+                && (total.samples < minSamples || Z_95 * total.standardError() > targetHalfWidth)
+                && System.nanoTime() - start < timeBudgetNanos
+                && !Thread.currentThread().isInterrupted()) {
+            SimulationTask round = new SimulationTask(heroMask, boardMask, opponents, seeds.getAndIncrement(),
+                    0, tasks, samplesPerTask, taskRunouts);
+            total.add(pool.invoke(round));
+        }
+
+        if (taskRunouts != null) {
+            for (RunoutTable table : taskRunouts) {
+                runouts.add(table);
+            }
+        }
+        return total.toResult();
+    }
+
+    // Plays one random deal and returns hero's share of the pot; deck[0..n) must exclude known cards
+    static double playDeal(long heroMask, long boardMask, int boardNeeded, int opponents,
+                           int[] deck, FastRandom random) {
+        int draw = boardNeeded + 2 * opponents;
+        int size = deck.length;
+        for (int i = 0; i < draw; i++) {
+            int j = i + random.nextInt(size - i);
+            int card = deck[j];
+            deck[j] = deck[i];
+            deck[i] = card;
+        }
+
+        long runout = boardMask;
+        for (int i = 0; i < boardNeeded; i++) {
+            runout |= Card.mask(deck[i]);
+        }
+        int hero = HandEvaluator.evaluate(heroMask | runout);
+        int tied = 0;
+        for (int i = boardNeeded; i < draw; i += 2) {
+            int villain = HandEvaluator.evaluate(runout | Card.mask(deck[i]) | Card.mask(deck[i + 1]));
+            if (villain > hero) {
+                return 0;
+            }
+            if (villain == hero) {
+                tied++;
+            }
+        }
+        return 1.0 / (tied + 1);
+    }
+
+    private static final class SimulationTask extends RecursiveTask<SampleStats> {
+
+        private final long heroMask;
+        private final long boardMask;
+        private final int opponents;
+        private final long seed;
+        private final int firstTask;
+        private final int taskCount;
+        private final int samplesPerTask;
+        private final RunoutTable[] taskRunouts;
+
+        SimulationTask(long heroMask, long boardMask, int opponents, long seed,
+                       int firstTask, int taskCount, int samplesPerTask, RunoutTable[] taskRunouts) {
+            this.heroMask = heroMask;
+            this.boardMask = boardMask;
+            this.opponents = opponents;
+            this.seed = seed;
+            this.firstTask = firstTask;
+            this.taskCount = taskCount;
+            this.samplesPerTask = samplesPerTask;
+            this.taskRunouts = taskRunouts;
+        }
+
+        @Override
+        protected SampleStats compute() {
+            if (taskCount > 1) {
+                int half = taskCount / 2;
+                SimulationTask left = new SimulationTask(heroMask, boardMask, opponents, seed,
+                        firstTask, half, samplesPerTask, taskRunouts);
+                SimulationTask right = new SimulationTask(heroMask, boardMask, opponents, seed,
+                        firstTask + half, taskCount - half, samplesPerTask, taskRunouts);
+                left.fork();
+                SampleStats stats = right.compute();
+                stats.add(left.join());
+                return stats;
+            }
+
+            FastRandom random = new FastRandom(seed + firstTask * 0x9E3779B97F4A7C15L);
+            int[] deck = EquityInputs.remainingDeck(heroMask | boardMask);
+            int boardNeeded = EquityInputs.BOARD_SIZE - Long.bitCount(boardMask);
+            RunoutTable runouts = taskRunouts != null && boardNeeded > 0 ? taskRunouts[firstTask] : null;
+            SampleStats stats = new SampleStats();
+            for (int i = 0; i < samplesPerTask; i++) {
+                double share = playDeal(heroMask, boardMask, boardNeeded, opponents, deck, random);
+                boolean tied = share > 0 && share < 1;
+                stats.add(share, tied);
+                if (runouts != null) {
+                    // playDeal leaves the runout cards at the front of the deck
+                    runouts.add(RunoutTable.cellOf(deck[0], deck[boardNeeded - 1]), share, tied);
+                }
+            }
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.pokeradvisor.equity;
+
+import com.example.pokeradvisor.eval.Card;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Read-only view of the precomputed preflop equity tables.
+ * Hands are the 169 canonical starting hands indexed like the usual 13x13 chart: pairs on the
+ * diagonal ({@code rank * 13 + rank}), suited hands at {@code high * 13 + low} and offsuit hands
+ * at {@code low * 13 + high}. Every entry is an unsigned 16-bit equity, so a lookup is one read.
+ * Layout, big-endian:
+ * <pre>
+ * header        magic "PFEQ", version, hand count, max opponents, reserved (16 bytes)
+ * heads-up      [hero][villain] equity of canonical hand vs canonical hand
+ * vs random     [opponents - 1][hero] equity against that many random hands
+ * </pre>
+ */
+public final class PreflopTable {
+
+    public interface Loader {
+        PreflopTable load() throws IOException;
+    }
+
+    public static final int HANDS = Card.RANKS * Card.RANKS;
+    public static final int MAGIC = 0x50464551; // "PFEQ"
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 16;
+
+    private static final double SCALE = 65535.0;
+
+    private final ByteBuffer buffer;
+    private final int maxOpponents;
+    private final int vsRandomOffset;
+
+    public PreflopTable(ByteBuffer buffer) throws IOException {
+        if (buffer.getInt(0) != MAGIC || buffer.getShort(4) != VERSION || buffer.getShort(6) != HANDS) {
+            throw new IOException("Not a preflop equity table");
+        }
+        this.buffer = buffer;
+        this.maxOpponents = buffer.getShort(8);
+        this.vsRandomOffset = HEADER_SIZE + HANDS * HANDS * 2;
+        if (buffer.limit() < tableSize(maxOpponents)) {
+            throw new IOException("Truncated preflop equity table");
+        }
+    }
+
+    public static int tableSize(int maxOpponents) {
+        return HEADER_SIZE + (HANDS * HANDS + maxOpponents * HANDS) * 2;
+    }
+
+    // Canonical chart index of two hole cards
+    public static int handIndex(int first, int second) {
+        int high = Math.max(Card.rank(first), Card.rank(second));
+        int low = Math.min(Card.rank(first), Card.rank(second));
+        if (Card.suit(first) == Card.suit(second)) {
+            return high * Card.RANKS + low;
+        }
+        return low * Card.RANKS + high;
+    }
+
+    public static String handName(int index) {
+        int row = index / Card.RANKS;
+        int column = index % Card.RANKS;
+        if (row == column) {
+            return "" + Card.rankChar(row) + Card.rankChar(row);
+        }
+        boolean suited = row > column;
+        return "" + Card.rankChar(Math.max(row, column)) + Card.rankChar(Math.min(row, column)) + (suited ? 's' : 'o');
+    }
+
+    public int getMaxOpponents() {
+        return maxOpponents;
+    }
+
+    // Equity of one canonical hand against another, averaged over all non-conflicting suit combinations
+    public double headsUp(int hero, int villain) {
+        return (buffer.getShort(HEADER_SIZE + (hero * HANDS + villain) * 2) & 0xFFFF) / SCALE;
+    }
+
+    public double vsRandom(int hero, int opponents) {
+        return (buffer.getShort(vsRandomOffset + ((opponents - 1) * HANDS + hero) * 2) & 0xFFFF) / SCALE;
+    }
+
+    public EquityResult lookup(int[] hole, int opponents) {
+        // Only the equity is stored; win and tie frequencies are not known preflop
+        double equity = vsRandom(handIndex(hole[0], hole[1]), opponents);
+        return new EquityResult(equity, Double.NaN, Double.NaN, 0, 0, true);
+    }
+
+    static short encode(double equity) {
+        return (short) Math.round(Math.max(0, Math.min(1, equity)) * SCALE);
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.pokeradvisor.equity;
+
+import com.example.pokeradvisor.eval.Card;
+import com.example.pokeradvisor.eval.HandEvaluator;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Offline generator of the {@link PreflopTable} asset.
+ * Usage: {@code PreflopTableGenerator <output> [heads-up trials] [vs-random trials]}. The
+ * defaults are the trial counts of the shipped asset; every row is seeded by its hand, so the
+ * defaults reproduce the asset byte for byte.
+ * Heads-up entries average over random non-conflicting suit combinations of both hands;
+ * entries against random hands use one representative combination, which is exact by symmetry.
+ */
+public final class PreflopTableGenerator {
+
+    private static final int MAX_OPPONENTS = EquityInputs.MAX_OPPONENTS;
+    private static final int DEFAULT_HEADS_UP_TRIALS = 50_000;
+    private static final int DEFAULT_VS_RANDOM_TRIALS = 200_000;
+
+    private final int headsUpTrials;
+    private final int vsRandomTrials;
+    private final long[][] combos = new long[PreflopTable.HANDS][];
+    private final double[] headsUp = new double[PreflopTable.HANDS * PreflopTable.HANDS];
+    private final double[] vsRandom = new double[MAX_OPPONENTS * PreflopTable.HANDS];
+
+    public PreflopTableGenerator(int headsUpTrials, int vsRandomTrials) {
+        this.headsUpTrials = headsUpTrials;
+        this.vsRandomTrials = vsRandomTrials;
+
+        List<List<Long>> byHand = new ArrayList<>();
+        for (int hand = 0; hand < PreflopTable.HANDS; hand++) {
+            byHand.add(new ArrayList<>());
+        }
+        for (int first = 0; first < Card.COUNT; first++) {
+            for (int second = first + 1; second < Card.COUNT; second++) {
+                byHand.get(PreflopTable.handIndex(first, second)).add(Card.mask(first) | Card.mask(second));
+            }
+        }
+        for (int hand = 0; hand < PreflopTable.HANDS; hand++) {
+            List<Long> masks = byHand.get(hand);
+            combos[hand] = new long[masks.size()];
+            for (int i = 0; i < masks.size(); i++) {
+                combos[hand][i] = masks.get(i);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: PreflopTableGenerator <output> [heads-up trials] [vs-random trials]");
+            System.exit(1);
+        }
+        int headsUpTrials = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_HEADS_UP_TRIALS;
+        int vsRandomTrials = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_VS_RANDOM_TRIALS;
+
+        PreflopTableGenerator generator = new PreflopTableGenerator(headsUpTrials, vsRandomTrials);
+        long start = System.nanoTime();
+        generator.generate(new ForkJoinPool());
+        generator.write(args[0]);
+        System.out.printf("Wrote %s in %.1f s%n", args[0], (System.nanoTime() - start) / 1e9);
+    }
+
+    public void generate(ForkJoinPool pool) {
+        List<ForkJoinTask<?>> rows = new ArrayList<>();
+        for (int hand = 0; hand < PreflopTable.HANDS; hand++) {
+            final int hero = hand;
+            rows.add(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    generateRow(hero);
+                }
+            });
+        }
+        for (ForkJoinTask<?> row : rows) {
+            pool.execute(row);
+        }
+        for (ForkJoinTask<?> row : rows) {
+            row.join();
+        }
+        // Rows only filled the upper triangle of the heads-up table
+        for (int hero = 0; hero < PreflopTable.HANDS; hero++) {
+            for (int villain = 0; villain < hero; villain++) {
+                headsUp[hero * PreflopTable.HANDS + villain] = 1 - headsUp[villain * PreflopTable.HANDS + hero];
+            }
+        }
+    }
+
+    private void generateRow(int hero) {
+        FastRandom random = new FastRandom(hero);
+        for (int villain = hero; villain < PreflopTable.HANDS; villain++) {
+            headsUp[hero * PreflopTable.HANDS + villain] = headsUpEquity(hero, villain, random);
+        }
+
+        long heroMask = combos[hero][0];
+        int[] deck = EquityInputs.remainingDeck(heroMask);
+        for (int opponents = 1; opponents <= MAX_OPPONENTS; opponents++) {
+            double shares = 0;
+            for (int trial = 0; trial < vsRandomTrials; trial++) {
+                shares += MonteCarloEquity.playDeal(heroMask, 0, EquityInputs.BOARD_SIZE, opponents, deck, random);
+            }
+            vsRandom[(opponents - 1) * PreflopTable.HANDS + hero] = shares / vsRandomTrials;
+        }
+    }
+
+    private double headsUpEquity(int hero, int villain, FastRandom random) {
+        long[] heroCombos = combos[hero];
+        long[] villainCombos = combos[villain];
+        double shares = 0;
+        for (int trial = 0; trial < headsUpTrials; trial++) {
+            long heroMask;
+            long villainMask;
+            do {
+                heroMask = heroCombos[random.nextInt(heroCombos.length)];
+                villainMask = villainCombos[random.nextInt(villainCombos.length)];
+            } while ((heroMask & villainMask) != 0);
+
+            long dead = heroMask | villainMask;
+            long board = 0;
+            for (int dealt = 0; dealt < EquityInputs.BOARD_SIZE; ) {
+                long card = Card.mask(random.nextInt(Card.COUNT));
+                if (((dead | board) & card) == 0) {
+                    board |= card;
+                    dealt++;
+                }
+            }
+            int heroValue = HandEvaluator.evaluate(heroMask | board);
+            int villainValue = HandEvaluator.evaluate(villainMask | board);
+            shares += heroValue > villainValue ? 1 : heroValue == villainValue ? 0.5 : 0;
+        }
+        return shares / headsUpTrials;
+    }
+
+    public void write(String path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)))) {
+            out.writeInt(PreflopTable.MAGIC);
+            out.writeShort(PreflopTable.VERSION);
+            out.writeShort(PreflopTable.HANDS);
+            out.writeShort(MAX_OPPONENTS);
+            for (int i = 10; i < PreflopTable.HEADER_SIZE; i++) {
+                out.writeByte(0);
+            }
+            for (double equity : headsUp) {
+                out.writeShort(PreflopTable.encode(equity));
+            }
+            for (double equity : vsRandom) {
+                out.writeShort(PreflopTable.encode(equity));
+            }
+        }
+    }
+}
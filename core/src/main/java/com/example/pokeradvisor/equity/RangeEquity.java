@@ -0,0 +1,292 @@
+package com.example.pokeradvisor.equity;
+
+import com.example.pokeradvisor.eval.Card;
+import com.example.pokeradvisor.eval.HandEvaluator;
+import com.example.pokeradvisor.range.Combos;
+import com.example.pokeradvisor.range.Range;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Equity of a hand or weighted range against a weighted range.
+ * For each runout both ranges are evaluated once per combo and sorted by value; one sweep then
+ * gives every hero combo the villain weight it beats and ties. Card removal is handled with
+ * per-card prefix sums, so blocked villain combos are subtracted in O(1) instead of comparing
+ * all combo pairs. Runouts are enumerated when there are few enough and sampled otherwise.
+ */
+public final class RangeEquity {
+
+    private static final int MIN_RUNOUTS_PER_TASK = 32;
+
+    private final ForkJoinPool pool;
+    private volatile int maxEnumeratedRunouts = 1_176; // every flop runout
+    private volatile int sampledRunouts = 4_096;
+    private volatile long seed = System.nanoTime();
+
+    public RangeEquity(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Runouts are enumerated when there are at most {@code maxEnumerated}, otherwise
+     * {@code sampled} random runouts are used.
+     */
+    public void setRunoutLimits(int maxEnumerated, int sampled) {
+        maxEnumeratedRunouts = maxEnumerated;
+        sampledRunouts = sampled;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public EquityResult handVsRange(int[] hole, Range villain, int[] board) {
+        if (hole.length != 2) {
+            throw new IllegalArgumentException("Hero needs exactly two hole cards, got " + hole.length);
+        }
+        EquityInputs.addCards(0, hole);
+        return rangeVsRange(Range.ofCombo(hole[0], hole[1]), villain, board);
+    }
+
+    public EquityResult rangeVsRange(Range hero, Range villain, int[] board) {
+        if (board.length > EquityInputs.BOARD_SIZE) {
+            throw new IllegalArgumentException("Board has " + board.length + " cards");
+        }
+        long boardMask = EquityInputs.addCards(0, board);
+        int[] heroCombos = liveCombos(hero, boardMask);
+        int[] villainCombos = liveCombos(villain, boardMask);
+        if (heroCombos.length == 0 || villainCombos.length == 0) {
+            throw new IllegalArgumentException("Range is empty once the board is removed");
+        }
+
+        int[] deck = EquityInputs.remainingDeck(boardMask);
+        int runoutCards = EquityInputs.BOARD_SIZE - board.length;
+        long runoutCount = ExactEquity.choose(deck.length, runoutCards);
+        boolean enumerate = runoutCount <= maxEnumeratedRunouts;
+        long[] runouts = enumerate ? allRunouts(deck, runoutCards, (int) runoutCount) : randomRunouts(deck, runoutCards);
+
+        Totals totals = pool.invoke(new SweepTask(hero, villain, heroCombos, villainCombos,
+                boardMask, runouts, 0, runouts.length));
+        return totals.toResult(enumerate);
+    }
+
+    private static int[] liveCombos(Range range, long boardMask) {
+        int[] live = new int[Combos.COUNT];
+        int count = 0;
+        for (int combo = 0; combo < Combos.COUNT; combo++) {
+            if (range.weight(combo) > 0 && (Combos.mask(combo) & boardMask) == 0) {
+                live[count++] = combo;
+            }
+        }
+        return Arrays.copyOf(live, count);
+    }
+
+    private static long[] allRunouts(int[] deck, int cards, int count) {
+        long[] runouts = new long[count];
+        addRunouts(deck, 0, cards, 0, runouts, 0);
+        return runouts;
+    }
+
+    private static int addRunouts(int[] deck, int from, int cardsLeft, long runout, long[] runouts, int count) {
+        if (cardsLeft == 0) {
+            runouts[count] = runout;
+            return count + 1;
+        }
+        for (int i = from; i <= deck.length - cardsLeft; i++) {
+            count = addRunouts(deck, i + 1, cardsLeft - 1, runout | Card.mask(deck[i]), runouts, count);
+        }
+        return count;
+    }
+
+    private long[] randomRunouts(int[] deck, int cards) {
+        FastRandom random = new FastRandom(seed++);
+        long[] runouts = new long[sampledRunouts];
+        for (int i = 0; i < runouts.length; i++) {
+            long runout = 0;
+            for (int dealt = 0; dealt < cards; dealt++) {
+                int j = dealt + random.nextInt(deck.length - dealt);
+                int card = deck[j];
+                deck[j] = deck[dealt];
+                deck[dealt] = card;
+                runout |= Card.mask(card);
+            }
+            runouts[i] = runout;
+        }
+        return runouts;
+    }
+
+    /**
+     * Weighted outcome sums over runouts, with a per-runout equity spread for sampled runouts.
+     */
+    static final class Totals {
+
+        double share;
+        double wins;
+        double ties;
+        double matchups;
+        final SampleStats runoutEquities = new SampleStats();
+
+        void add(Totals other) {
+            share += other.share;
+            wins += other.wins;
+            ties += other.ties;
+            matchups += other.matchups;
+            runoutEquities.add(other.runoutEquities);
+        }
+
+        EquityResult toResult(boolean exact) {
+            if (matchups == 0) {
+                throw new IllegalArgumentException("Ranges never meet: every matchup shares a card");
+            }
+            double error = exact ? 0 : runoutEquities.standardError();
+            return new EquityResult(share / matchups, wins / matchups, ties / matchups,
+                    runoutEquities.samples, error, exact);
+        }
+    }
+
+    private static final class SweepTask extends RecursiveTask<Totals> {
+
+        private final Range hero;
+        private final Range villain;
+        private final int[] heroCombos;
+        private final int[] villainCombos;
+        private final long boardMask;
+        private final long[] runouts;
+        private final int from;
+        private final int to;
+
+        SweepTask(Range hero, Range villain, int[] heroCombos, int[] villainCombos,
+                  long boardMask, long[] runouts, int from, int to) {
+            this.hero = hero;
+            this.villain = villain;
+            this.heroCombos = heroCombos;
+            this.villainCombos = villainCombos;
+            this.boardMask = boardMask;
+            this.runouts = runouts;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Totals compute() {
+            if (to - from > MIN_RUNOUTS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                SweepTask left = new SweepTask(hero, villain, heroCombos, villainCombos, boardMask, runouts, from, middle);
+                SweepTask right = new SweepTask(hero, villain, heroCombos, villainCombos, boardMask, runouts, middle, to);
+                left.fork();
+                Totals totals = right.compute();
+                totals.add(left.join());
+                return totals;
+            }
+            Sweep sweep = new Sweep(hero, villain, heroCombos, villainCombos);
+            Totals totals = new Totals();
+            for (int i = from; i < to; i++) {
+                sweep.run(boardMask | runouts[i], totals);
+            }
+            return totals;
+        }
+    }
+
+    /**
+     * Scratch state for sweeping one complete board at a time; reused across runouts.
+     */
+    static final class Sweep {
+
+        private final Range hero;
+        private final Range villain;
+        private final int[] heroCombos;
+        private final int[] villainCombos;
+        private final long[] heroKeys;
+        private final long[] villainKeys;
+        // Villain weight below the current hero value, and at or below it, in total and per card
+        private final double[] lessByCard = new double[Card.COUNT];
+        private final double[] atMostByCard = new double[Card.COUNT];
+        private final double[] allByCard = new double[Card.COUNT];
+
+        Sweep(Range hero, Range villain, int[] heroCombos, int[] villainCombos) {
+            this.hero = hero;
+            this.villain = villain;
+            this.heroCombos = heroCombos;
+            this.villainCombos = villainCombos;
+            this.heroKeys = new long[heroCombos.length];
+            this.villainKeys = new long[villainCombos.length];
+        }
+
+        void run(long board, Totals totals) {
+            int heroCount = sortedKeys(heroCombos, board, heroKeys);
+            int villainCount = sortedKeys(villainCombos, board, villainKeys);
+            Arrays.fill(lessByCard, 0);
+            Arrays.fill(atMostByCard, 0);
+            Arrays.fill(allByCard, 0);
+
+            double all = 0;
+            for (int i = 0; i < villainCount; i++) {
+                int combo = (int) villainKeys[i] & 0x7FF;
+                double weight = villain.weight(combo);
+                all += weight;
+                allByCard[Combos.first(combo)] += weight;
+                allByCard[Combos.second(combo)] += weight;
+            }
+
+            double less = 0;
+            double atMost = 0;
+            int lessEnd = 0;
+            int atMostEnd = 0;
+            double runoutShare = 0;
+            double runoutMatchups = 0;
+            for (int i = 0; i < heroCount; i++) {
+                long value = heroKeys[i] >>> 11;
+                int combo = (int) heroKeys[i] & 0x7FF;
+                while (lessEnd < villainCount && villainKeys[lessEnd] >>> 11 < value) {
+                    less += addVillain(villainKeys[lessEnd++], lessByCard);
+                }
+                while (atMostEnd < villainCount && villainKeys[atMostEnd] >>> 11 <= value) {
+                    atMost += addVillain(villainKeys[atMostEnd++], atMostByCard);
+                }
+
+                int first = Combos.first(combo);
+                int second = Combos.second(combo);
+                // The identical villain combo is blocked by both cards, so it is subtracted twice
+                double same = villain.weight(combo);
+                double beaten = less - lessByCard[first] - lessByCard[second];
+                double tied = atMost - atMostByCard[first] - atMostByCard[second] + same - beaten;
+                double matchups = all - allByCard[first] - allByCard[second] + same;
+
+                double weight = hero.weight(combo);
+                totals.wins += weight * beaten;
+                totals.ties += weight * tied;
+                runoutShare += weight * (beaten + tied / 2);
+                runoutMatchups += weight * matchups;
+            }
+
+            totals.share += runoutShare;
+            totals.matchups += runoutMatchups;
+            if (runoutMatchups > 0) {
+                totals.runoutEquities.add(runoutShare / runoutMatchups, false);
+            }
+        }
+
+        private double addVillain(long key, double[] byCard) {
+            int combo = (int) key & 0x7FF;
+            double weight = villain.weight(combo);
+            byCard[Combos.first(combo)] += weight;
+            byCard[Combos.second(combo)] += weight;
+            return weight;
+        }
+
+        // Packs hand value and combo index of every combo the board leaves alive, sorted by value
+        private static int sortedKeys(int[] combos, long board, long[] keys) {
+            int count = 0;
+            for (int combo : combos) {
+                long mask = Combos.mask(combo);
+                if ((mask & board) == 0) {
+                    keys[count++] = (long) HandEvaluator.evaluate(board | mask) << 11 | combo;
+                }
+            }
+            Arrays.sort(keys, 0, count);
+            return count;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.pokeradvisor.equity;
+
+import com.example.pokeradvisor.eval.Card;
+
+/**
+ * Equity statistics of one board prefix broken down by the runout cards that complete it.
+ * A cell holds the deals whose runout was exactly one card {@code c} (cell {@code c, c}) or
+ * two cards {@code a < b} (cell {@code a, b}). Once the turn is known, the deals of the flop
+ * table that contain it are the turn's equity without further evaluation. The sums of
+ * {@link SampleStats} are kept in flat arrays indexed by cell, so a table is a handful of
+ * allocations however many cells it has.
+ */
+final class RunoutTable {
+
+    private static final int CELLS = Card.COUNT * Card.COUNT;
+
+    private final long[] samples = new long[CELLS];
+    private final long[] wins = new long[CELLS];
+    private final long[] ties = new long[CELLS];
+    private final double[] shareSums = new double[CELLS];
+    private final double[] shareSquareSums = new double[CELLS];
+
+    // Cell of a runout of one or two cards given as an evaluator mask
+    static int cellOf(long runout) {
+        int first = Card.fromBit(Long.numberOfTrailingZeros(runout));
+        long rest = runout & (runout - 1);
+        int second = rest == 0 ? first : Card.fromBit(Long.numberOfTrailingZeros(rest));
+        return cellOf(first, second);
+    }
+
+    static int cellOf(int first, int second) {
+        return Math.min(first, second) * Card.COUNT + Math.max(first, second);
+    }
+
+    // Adds one deal to a cell
+    void add(int cell, double share, boolean tied) {
+        samples[cell]++;
+        shareSums[cell] += share;
+        shareSquareSums[cell] += share * share;
+        if (tied) {
+            ties[cell]++;
+        } else if (share > 0) {
+            wins[cell]++;
+        }
+    }
+
+    // Adds a set of deals to a cell
+    void add(int cell, SampleStats stats) {
+        samples[cell] += stats.samples;
+        wins[cell] += stats.wins;
+        ties[cell] += stats.ties;
+        shareSums[cell] += stats.shareSum;
+        shareSquareSums[cell] += stats.shareSquareSum;
+    }
+
+    void add(RunoutTable other) {
+        for (int i = 0; i < CELLS; i++) {
+            addCell(other, i, i);
+        }
+    }
+
+    // Deals whose runout contains every card of the mask
+    SampleStats statsFor(long cards) {
+        SampleStats stats = new SampleStats();
+        if (Long.bitCount(cards) == 2) {
+            addTo(stats, cellOf(cards));
+            return stats;
+        }
+        int card = Card.fromBit(Long.numberOfTrailingZeros(cards));
+        for (int other = 0; other < Card.COUNT; other++) {
+            addTo(stats, cellOf(card, other));
+        }
+        return stats;
+    }
+
+    // Table of the board extended by one card, keyed by the remaining river card
+    RunoutTable conditionOn(int card) {
+        RunoutTable table = new RunoutTable();
+        for (int river = 0; river < Card.COUNT; river++) {
+            if (river != card) {
+                table.addCell(this, cellOf(card, river), cellOf(river, river));
+            }
+        }
+        return table;
+    }
+
+    private void addCell(RunoutTable other, int from, int to) {
+        samples[to] += other.samples[from];
+        wins[to] += other.wins[from];
+        ties[to] += other.ties[from];
+        shareSums[to] += other.shareSums[from];
+        shareSquareSums[to] += other.shareSquareSums[from];
+    }
+
+    private void addTo(SampleStats stats, int cell) {
+        stats.samples += samples[cell];
+        stats.wins += wins[cell];
+        stats.ties += ties[cell];
+        stats.shareSum += shareSums[cell];
+        stats.shareSquareSum += shareSquareSums[cell];
+    }
+}
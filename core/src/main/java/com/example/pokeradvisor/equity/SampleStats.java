@@ -0,0 +1,72 @@
+package com.example.pokeradvisor.equity;
+
+/**
+ * Running sums of hero's pot share over simulated deals.
+ */
+final class SampleStats {
+
+    long samples;
+    long wins;
+    long ties;
+    double shareSum;
+    double shareSquareSum;
+
+    void add(double share, boolean tied) {
+        add(share, tied, 1);
+    }
+
+    // Adds a deal that stands for `weight` equally likely deals
+    void add(double share, boolean tied, long weight) {
+        samples += weight;
+        shareSum += share * weight;
+        shareSquareSum += share * share * weight;
+        if (tied) {
+            ties += weight;
+        } else if (share > 0) {
+            wins += weight;
+        }
+    }
+
+    void add(SampleStats other) {
+        add(other, 1);
+    }
+
+    // Adds another set of deals, each of which stands for `weight` equally likely deals
+    void add(SampleStats other, long weight) {
+        samples += other.samples * weight;
+        wins += other.wins * weight;
+        ties += other.ties * weight;
+        shareSum += other.shareSum * weight;
+        shareSquareSum += other.shareSquareSum * weight;
+    }
+
+    void clear() {
+        samples = 0;
+        wins = 0;
+        ties = 0;
+        shareSum = 0;
+        shareSquareSum = 0;
+    }
+
+    double mean() {
+        return samples == 0 ? 0 : shareSum / samples;
+    }
+
+    double standardError() {
+        if (samples < 2) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double mean = mean();
+        double variance = Math.max(0, shareSquareSum / samples - mean * mean);
+        return Math.sqrt(variance / samples);
+    }
+
+    EquityResult toResult() {
+        return new EquityResult(mean(), (double) wins / samples, (double) ties / samples,
+                samples, standardError(), false);
+    }
+
+    EquityResult toExactResult() {
+        return new EquityResult(mean(), (double) wins / samples, (double) ties / samples, samples, 0, true);
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.pokeradvisor.eval;
+
+/**
+ * Compact int encoding of playing cards.
+ * A card is {@code rank << 2 | suit} in the range 0..51, where rank 0 is a deuce and 12 an ace,
+ * and suits are ordered clubs, diamonds, hearts, spades. For hand evaluation a card is also
+ * represented as a single bit of a 64-bit mask laid out as four 16-bit suit lanes
+ * ({@code suit * 16 + rank}), so the 13-bit rank mask of each suit can be read with one shift.
+ */
+public final class Card {
+
+    public static final int NONE = -1;
+    public static final int COUNT = 52;
+    public static final int RANKS = 13;
+    public static final int SUITS = 4;
+
+    public static final int CLUBS = 0;
+    public static final int DIAMONDS = 1;
+    public static final int HEARTS = 2;
+    public static final int SPADES = 3;
+
+    private static final String RANK_CHARS = "23456789TJQKA";
+    private static final String SUIT_CHARS = "cdhs";
+    private static final long[] MASKS = new long[COUNT];
+
+    static {
+        for (int card = 0; card < COUNT; card++) {
+            MASKS[card] = 1L << (suit(card) * 16 + rank(card));
+        }
+    }
+
+    private Card() {
+    }
+
+    public static int of(int rank, int suit) {
+        return rank << 2 | suit;
+    }
+
+    public static int rank(int card) {
+        return card >>> 2;
+    }
+
+    public static int suit(int card) {
+        return card & 3;
+    }
+
+    // Single-bit evaluator mask of a card
+    public static long mask(int card) {
+        return MASKS[card];
+    }
+
+    public static long mask(int[] cards, int count) {
+        long mask = 0;
+        for (int i = 0; i < count; i++) {
+            mask |= MASKS[cards[i]];
+        }
+        return mask;
+    }
+
+    // Inverse of mask(): card for a bit index of an evaluator mask
+    public static int fromBit(int bit) {
+        return of(bit & 15, bit >>> 4);
+    }
+
+    /**
+     * Parses a card token such as "Kh", "Ts" or "10s".
+     * @return the card, or {@link #NONE} if the token is not a card
+     */
+    public static int parse(CharSequence text) {
+        int length = text.length();
+        int rank;
+        if (length == 2) {
+            rank = RANK_CHARS.indexOf(text.charAt(0));
+        } else if (length == 3 && text.charAt(0) == '1' && text.charAt(1) == '0') {
+            rank = 8;
+        } else {
+            return NONE;
+        }
+        int suit = SUIT_CHARS.indexOf(text.charAt(length - 1));
+        if (rank < 0 || suit < 0) {
+            return NONE;
+        }
+        return of(rank, suit);
+    }
+
+    public static char rankChar(int rank) {
+        return RANK_CHARS.charAt(rank);
+    }
+
+    public static char suitChar(int suit) {
+        return SUIT_CHARS.charAt(suit);
+    }
+
+    public static String toString(int card) {
+        return new String(new char[]{rankChar(rank(card)), suitChar(suit(card))});
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.pokeradvisor.eval;
+
+/**
+ * Table-driven evaluator for 5, 6 and 7 card hands given as {@link Card} masks.
+ * The returned value is {@code category << 20} followed by up to five 4-bit rank nibbles,
+ * so a larger value is always a stronger hand. Evaluation does no allocation: it splits the
+ * mask into four 13-bit suit rank masks and resolves the hand with bit operations and
+ * 8192-entry lookup tables indexed by those rank masks.
+ */
+public final class HandEvaluator {
+
+    public static final int HIGH_CARD = 0;
+    public static final int PAIR = 1;
+    public static final int TWO_PAIR = 2;
+    public static final int TRIPS = 3;
+    public static final int STRAIGHT = 4;
+    public static final int FLUSH = 5;
+    public static final int FULL_HOUSE = 6;
+    public static final int QUADS = 7;
+    public static final int STRAIGHT_FLUSH = 8;
+    public static final int CATEGORY_COUNT = 9;
+
+    private static final int CATEGORY_SHIFT = 20;
+    private static final int RANK_MASK_SIZE = 1 << Card.RANKS;
+    private static final String[] CATEGORY_NAMES = {
+            "High card", "Pair", "Two pair", "Three of a kind", "Straight",
+            "Flush", "Full house", "Four of a kind", "Straight flush"
+    };
+
+    // Number of ranks set in a rank mask
+    private static final byte[] BIT_COUNT = new byte[RANK_MASK_SIZE];
+    // Highest rank set in a rank mask
+    private static final byte[] TOP_RANK = new byte[RANK_MASK_SIZE];
+    // Top five ranks of a rank mask packed as nibbles, highest first
+    private static final int[] TOP_FIVE = new int[RANK_MASK_SIZE];
+    // High rank of the best straight in a rank mask, or 0 if there is none
+    private static final byte[] STRAIGHT_HIGH = new byte[RANK_MASK_SIZE];
+
+    static {
+        for (int ranks = 1; ranks < RANK_MASK_SIZE; ranks++) {
+            BIT_COUNT[ranks] = (byte) Integer.bitCount(ranks);
+            TOP_RANK[ranks] = (byte) (31 - Integer.numberOfLeadingZeros(ranks));
+
+            int packed = 0;
+            int shift = 16;
+            for (int rank = Card.RANKS - 1; rank >= 0 && shift >= 0; rank--) {
+                if ((ranks & (1 << rank)) != 0) {
+                    packed |= rank << shift;
+                    shift -= 4;
+                }
+            }
+            TOP_FIVE[ranks] = packed;
+
+            for (int high = Card.RANKS - 1; high >= 4; high--) {
+                if ((ranks >>> (high - 4) & 0x1F) == 0x1F) {
+                    STRAIGHT_HIGH[ranks] = (byte) high;
+                    break;
+                }
+            }
+            if (STRAIGHT_HIGH[ranks] == 0 && (ranks & 0x100F) == 0x100F) {
+                STRAIGHT_HIGH[ranks] = 3; // A-2-3-4-5
+            }
+        }
+    }
+
+    private HandEvaluator() {
+    }
+
+    /**
+     * Evaluates the best five card hand contained in a mask of 5 to 7 cards.
+     */
+    public static int evaluate(long cards) {
+        int c = (int) cards & 0x1FFF;
+        int d = (int) (cards >>> 16) & 0x1FFF;
+        int h = (int) (cards >>> 32) & 0x1FFF;
+        int s = (int) (cards >>> 48) & 0x1FFF;
+        int ranks = c | d | h | s;
+        int uniqueRanks = BIT_COUNT[ranks];
+        int duplicates = Long.bitCount(cards) - uniqueRanks;
+
+        int result = 0;
+        if (uniqueRanks >= 5) {
+            int flush = BIT_COUNT[c] >= 5 ? c : BIT_COUNT[d] >= 5 ? d : BIT_COUNT[h] >= 5 ? h : BIT_COUNT[s] >= 5 ? s : 0;
+            if (flush != 0) {
+                int straightHigh = STRAIGHT_HIGH[flush];
+                if (straightHigh != 0) {
+                    return STRAIGHT_FLUSH << CATEGORY_SHIFT | straightHigh << 16;
+                }
+                result = FLUSH << CATEGORY_SHIFT | TOP_FIVE[flush];
+            } else {
+                int straightHigh = STRAIGHT_HIGH[ranks];
+                if (straightHigh != 0) {
+                    result = STRAIGHT << CATEGORY_SHIFT | straightHigh << 16;
+                }
+            }
+            // A full house or quads needs at least three duplicated cards
+            if (result != 0 && duplicates < 3) {
+                return result;
+            }
+        }
+
+        switch (duplicates) {
+            case 0:
+                return HIGH_CARD << CATEGORY_SHIFT | TOP_FIVE[ranks];
+            case 1: {
+                int pair = ranks ^ (c ^ d ^ h ^ s);
+                return PAIR << CATEGORY_SHIFT | TOP_RANK[pair] << 16 | TOP_FIVE[ranks ^ pair] >>> 8;
+            }
+            case 2: {
+                int pairs = ranks ^ (c ^ d ^ h ^ s);
+                if (pairs != 0) {
+                    int high = TOP_RANK[pairs];
+                    int low = TOP_RANK[pairs ^ (1 << high)];
+                    return TWO_PAIR << CATEGORY_SHIFT | high << 16 | low << 12 | TOP_RANK[ranks ^ pairs] << 8;
+                }
+                int trips = ((c & d) | (h & s)) & ((c & h) | (d & s));
+                return TRIPS << CATEGORY_SHIFT | TOP_RANK[trips] << 16 | TOP_FIVE[ranks ^ trips] >>> 12;
+            }
+            default: {
+                int quads = c & d & h & s;
+                if (quads != 0) {
+                    int quadRank = TOP_RANK[quads];
+                    return QUADS << CATEGORY_SHIFT | quadRank << 16 | TOP_RANK[ranks ^ quads] << 12;
+                }
+                int pairs = ranks ^ (c ^ d ^ h ^ s);
+                if (BIT_COUNT[pairs] != duplicates) {
+                    // Every pair accounts for one duplicate, so a mismatch means there are trips
+                    int trips = ((c & d) | (h & s)) & ((c & h) | (d & s));
+                    int tripRank = TOP_RANK[trips];
+                    int rest = (pairs | trips) ^ (1 << tripRank);
+                    return FULL_HOUSE << CATEGORY_SHIFT | tripRank << 16 | TOP_RANK[rest] << 12;
+                }
+                if (result != 0) {
+                    return result;
+                }
+                int high = TOP_RANK[pairs];
+                int low = TOP_RANK[pairs ^ (1 << high)];
+                int kicker = TOP_RANK[ranks ^ (1 << high) ^ (1 << low)];
+                return TWO_PAIR << CATEGORY_SHIFT | high << 16 | low << 12 | kicker << 8;
+            }
+        }
+    }
+
+    public static int category(int value) {
+        return value >>> CATEGORY_SHIFT;
+    }
+
+    public static String categoryName(int category) {
+        return CATEGORY_NAMES[category];
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.pokeradvisor.eval;
+
+/**
+ * Finds the unseen cards that improve hero's hand on the flop or turn.
+ * An out is a card that lifts hero to a higher {@link HandEvaluator} category than both hero's
+ * current hand and the board itself, so a card that only pairs the board is not one. An out is
+ * dirty when, after it lands, the board lets a likely opponent hold a better category than hero's
+ * new hand: a full house once the board is paired, a flush with three cards of a suit, or a
+ * straight with three board ranks inside a five-rank window. Those threats are read from the
+ * 13-bit rank mask of each suit, and on the flop every turn and river pair is evaluated as well,
+ * so a full analysis is a few thousand table lookups and no allocation besides the result.
+ */
+public final class OutsAnalyzer {
+
+    private static final int RANK_MASK_SIZE = 1 << Card.RANKS;
+    private static final long ALL_CARDS = 0x1FFF_1FFF_1FFF_1FFFL;
+    // Whether three or more ranks of a rank mask fit in one straight, the wheel included
+    private static final boolean[] STRAIGHT_THREAT = new boolean[RANK_MASK_SIZE];
+
+    static {
+        int wheel = 0x100F;
+        for (int ranks = 0; ranks < RANK_MASK_SIZE; ranks++) {
+            boolean threat = Integer.bitCount(ranks & wheel) >= 3;
+            for (int low = 0; low + 5 <= Card.RANKS && !threat; low++) {
+                threat = Integer.bitCount(ranks & (0x1F << low)) >= 3;
+            }
+            STRAIGHT_THREAT[ranks] = threat;
+        }
+    }
+
+    private OutsAnalyzer() {
+    }
+
+    /**
+     * Analyzes the next card and, on the flop, both remaining cards.
+     * @param hero mask of hero's two hole cards
+     * @param board mask of three or four board cards
+     * @throws IllegalArgumentException if the cards do not form a flop or turn spot
+     */
+    public static Outs analyze(long hero, long board) {
+        int boardCards = Long.bitCount(board);
+        if (Long.bitCount(hero) != 2 || (hero & board) != 0 || boardCards < 3 || boardCards > 4) {
+            throw new IllegalArgumentException("Outs need two hole cards and a flop or turn board");
+        }
+        long known = hero | board;
+        long unseen = ~known & ALL_CARDS;
+        int current = HandEvaluator.category(HandEvaluator.evaluate(known));
+
+        long[] outs = new long[HandEvaluator.CATEGORY_COUNT];
+        long dirty = 0;
+        int[] improved = new int[HandEvaluator.CATEGORY_COUNT];
+        int runouts = 0;
+        for (long next = unseen; next != 0; next &= next - 1) {
+            long card = next & -next;
+            int category = HandEvaluator.category(HandEvaluator.evaluate(known | card));
+            boolean improves = category > current && category > boardCategory(board | card);
+            if (improves) {
+                outs[category] |= card;
+                if (threat(board | card) > category) {
+                    dirty |= card;
+                }
+            }
+            if (boardCards == 3) {
+                // Each river card after this turn card, every unordered pair counted once
+                for (long river = next & (next - 1); river != 0; river &= river - 1) {
+                    long runout = card | (river & -river);
+                    int finalCategory = HandEvaluator.category(HandEvaluator.evaluate(known | runout));
+                    if (finalCategory > current && finalCategory > boardCategory(board | runout)) {
+                        improved[finalCategory]++;
+                    }
+                    runouts++;
+                }
+            } else {
+                if (improves) {
+                    improved[category]++;
+                }
+                runouts++;
+            }
+        }
+        return new Outs(current, outs, dirty, improved, runouts);
+    }
+
+    // Category of the board cards alone; four cards can only pair up
+    static int boardCategory(long board) {
+        if (Long.bitCount(board) >= 5) {
+            return HandEvaluator.category(HandEvaluator.evaluate(board));
+        }
+        int c = (int) board & 0x1FFF;
+        int d = (int) (board >>> 16) & 0x1FFF;
+        int h = (int) (board >>> 32) & 0x1FFF;
+        int s = (int) (board >>> 48) & 0x1FFF;
+        if ((c & d & h & s) != 0) {
+            return HandEvaluator.QUADS;
+        }
+        if ((((c & d) | (h & s)) & ((c & h) | (d & s))) != 0) {
+            return HandEvaluator.TRIPS;
+        }
+        int pairs = Integer.bitCount((c | d | h | s) ^ (c ^ d ^ h ^ s));
+        return pairs == 2 ? HandEvaluator.TWO_PAIR : pairs == 1 ? HandEvaluator.PAIR : HandEvaluator.HIGH_CARD;
+    }
+
+    // Best category an opponent can plausibly reach on this board with two hole cards
+    static int threat(long board) {
+        int c = (int) board & 0x1FFF;
+        int d = (int) (board >>> 16) & 0x1FFF;
+        int h = (int) (board >>> 32) & 0x1FFF;
+        int s = (int) (board >>> 48) & 0x1FFF;
+        int ranks = c | d | h | s;
+        if (Integer.bitCount(ranks) < Long.bitCount(board)) {
+            return HandEvaluator.FULL_HOUSE;
+        }
+        if (Integer.bitCount(c) >= 3 || Integer.bitCount(d) >= 3 || Integer.bitCount(h) >= 3 || Integer.bitCount(s) >= 3) {
+            return HandEvaluator.FLUSH;
+        }
+        if (STRAIGHT_THREAT[ranks]) {
+            return HandEvaluator.STRAIGHT;
+        }
+        return HandEvaluator.HIGH_CARD;
+    }
+
+    /**
+     * Outs of one spot. Card sets are {@link Card} masks.
+     */
+    public static final class Outs {
+
+        private final int category;
+        private final long[] outs;
+        private final long dirty;
+        private final int[] improved;
+        private final int runouts;
+
+        Outs(int category, long[] outs, long dirty, int[] improved, int runouts) {
+            this.category = category;
+            this.outs = outs;
+            this.dirty = dirty;
+            this.improved = improved;
+            this.runouts = runouts;
+        }
+
+        // Hero's category before the next card
+        public int getCategory() {
+            return category;
+        }
+
+        // Next cards that make hero exactly the given category
+        public long outs(int category) {
+            return outs[category];
+        }
+
+        public long allOuts() {
+            long all = 0;
+            for (long categoryOuts : outs) {
+                all |= categoryOuts;
+            }
+            return all;
+        }
+
+        public long cleanOuts() {
+            return allOuts() & ~dirty;
+        }
+
+        // Outs that let a likely opponent hold a better hand than the one hero makes
+        public long dirtyOuts() {
+            return dirty;
+        }
+
+        public int count() {
+            return Long.bitCount(allOuts());
+        }
+
+        public int cleanCount() {
+            return Long.bitCount(cleanOuts());
+        }
+
+        /**
+         * Chance that hero ends the hand on the river in the given, better category.
+         */
+        public double improveProbability(int category) {
+            return (double) improved[category] / runouts;
+        }
+
+        // Chance that hero improves by the river
+        public double improveProbability() {
+            int total = 0;
+            for (int count : improved) {
+                total += count;
+            }
+            return (double) total / runouts;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.pokeradvisor.game;
+
+import com.example.pokeradvisor.eval.Card;
+
+import java.util.Arrays;
+
+/**
+ * Stabilizes recognized cards over the last few frames.
+ * Each card position (slot, in recognition order) keeps a ring buffer of the cards read there in
+ * the last {@code window} frames together with their confidence; an empty slot counts as a vote
+ * for no card with full confidence. A slot settles on the candidate that holds more than half of
+ * the slot's confidence and was read in at least {@code minVotes} frames, and otherwise keeps what
+ * it had settled on before, so a single misread frame changes nothing. {@link #vote} reports when
+ * the settled hand changes, which is when advice and equity need to be recomputed.
+ */
+public final class CardVoter {
+
+    private final int window;
+    private final int minVotes;
+    // Per slot ring buffers of card + 1 (0 for no card) and confidence
+    private final int[][] cards;
+    private final float[][] confidences;
+    private final int[] settled = new int[HandState.MAX_CARDS];
+    private final float[] weights = new float[Card.COUNT + 1];
+    private final int[] votes = new int[Card.COUNT + 1];
+    private final HandState stableHand = new HandState();
+    private int next;
+    private int frames;
+    private boolean agreed = true;
+
+    public CardVoter(int window, int minVotes) {
+        if (minVotes < 1 || minVotes > window) {
+            throw new IllegalArgumentException("Votes needed must be between 1 and the window of " + window);
+        }
+        this.window = window;
+        this.minVotes = minVotes;
+        cards = new int[HandState.MAX_CARDS][window];
+        confidences = new float[HandState.MAX_CARDS][window];
+    }
+
+    /**
+     * Adds the cards recognized in one frame.
+     * @param confidences confidence between 0 and 1 of each card of {@code recognized}, in order
+     * @return true if the stable hand changed
+     */
+    public boolean vote(HandState recognized, float[] confidences) {
+        for (int slot = 0; slot < HandState.MAX_CARDS; slot++) {
+            boolean present = slot < recognized.size();
+            cards[slot][next] = present ? recognized.card(slot) + 1 : 0;
+            this.confidences[slot][next] = present ? confidences[slot] : 1;
+        }
+        next = (next + 1) % window;
+        frames = Math.min(frames + 1, window);
+
+        boolean changed = false;
+        int last = (next + window - 1) % window;
+        agreed = true;
+        for (int slot = 0; slot < HandState.MAX_CARDS; slot++) {
+            int winner = winner(slot);
+            if (winner >= 0 && winner != settled[slot]) {
+                settled[slot] = winner;
+                changed = true;
+            }
+            agreed &= cards[slot][last] == settled[slot];
+        }
+        if (changed) {
+            stableHand.clear();
+            for (int value : settled) {
+                if (value != 0) {
+                    stableHand.add(value - 1);
+                }
+            }
+        }
+        return changed;
+    }
+
+    // Cards that have been stable; owned by the voter and updated by vote
+    public HandState getStableHand() {
+        return stableHand;
+    }
+
+    /**
+     * Returns whether the last frame voted for exactly the stable hand. Until it does, more frames
+     * of the same scene are needed to settle the vote.
+     */
+    public boolean isSettled() {
+        return agreed;
+    }
+
+    public void reset() {
+        next = 0;
+        frames = 0;
+        agreed = true;
+        Arrays.fill(settled, 0);
+        stableHand.clear();
+    }
+
+    // Card + 1 (0 for none) that won the slot's vote, or -1 if no candidate is clear yet
+    private int winner(int slot) {
+        Arrays.fill(weights, 0);
+        Arrays.fill(votes, 0);
+        float total = 0;
+        for (int i = 0; i < frames; i++) {
+            int value = cards[slot][i];
+            float confidence = confidences[slot][i];
+            weights[value] += confidence;
+            votes[value]++;
+            total += confidence;
+        }
+        int best = 0;
+        for (int value = 1; value < weights.length; value++) {
+            if (weights[value] > weights[best]) {
+                best = value;
+            }
+        }
+        return votes[best] >= minVotes && weights[best] > total / 2 ? best : -1;
+    }
+}
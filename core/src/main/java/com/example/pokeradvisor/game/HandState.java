@@ -0,0 +1,121 @@
+package com.example.pokeradvisor.game;
+
+import com.example.pokeradvisor.eval.Card;
+import com.example.pokeradvisor.eval.HandEvaluator;
+import com.example.pokeradvisor.eval.OutsAnalyzer;
+
+/**
+ * Cards recognized in one frame, in the order they were read.
+ * The first two distinct cards are hero's hole cards and up to five more form the board;
+ * duplicates and tokens that are not cards are ignored. An instance can be reused after
+ * {@link #clear()}.
+ */
+public final class HandState {
+
+    public static final int MAX_CARDS = 7;
+
+    private final int[] cards = new int[MAX_CARDS];
+    private int count;
+    private long mask;
+
+    public void clear() {
+        count = 0;
+        mask = 0;
+    }
+
+    /**
+     * Adds a recognized card token such as "Kh" or "10s".
+     * @return true if the token was a card, even when it was already known
+     */
+    public boolean add(CharSequence token) {
+        int card = Card.parse(token);
+        if (card == Card.NONE) {
+            return false;
+        }
+        add(card);
+        return true;
+    }
+
+    /**
+     * Adds a card unless it is already known or all seven cards are.
+     * @return true if the card was added
+     */
+    public boolean add(int card) {
+        long cardMask = Card.mask(card);
+        if ((mask & cardMask) != 0 || count == MAX_CARDS) {
+            return false;
+        }
+        cards[count++] = card;
+        mask |= cardMask;
+        return true;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    // Card at a position in recognition order
+    public int card(int index) {
+        if (index >= count) {
+            throw new IndexOutOfBoundsException("Card " + index + " of " + count);
+        }
+        return cards[index];
+    }
+
+    // Cards in recognition order as text, e.g. "Ah, Kd, Ts"
+    public String cardsText() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(", ");
+            }
+            text.append(Card.toString(cards[i]));
+        }
+        return text.toString();
+    }
+
+    public long mask() {
+        return mask;
+    }
+
+    public boolean hasHole() {
+        return count >= 2;
+    }
+
+    public int[] hole() {
+        if (!hasHole()) {
+            throw new IllegalStateException("Hole cards not known yet");
+        }
+        return new int[]{cards[0], cards[1]};
+    }
+
+    public int[] board() {
+        if (!hasHole()) {
+            return new int[0];
+        }
+        int[] board = new int[count - 2];
+        System.arraycopy(cards, 2, board, 0, board.length);
+        return board;
+    }
+
+    /**
+     * Names the best five-card hand, or returns null while fewer than five cards are known.
+     */
+    public String handName() {
+        if (count < 5) {
+            return null;
+        }
+        return HandEvaluator.categoryName(HandEvaluator.category(HandEvaluator.evaluate(mask)));
+    }
+
+    /**
+     * Outs for the next card on the flop or turn, or null on other streets.
+     */
+    public OutsAnalyzer.Outs outs() {
+        if (count < 5 || count > 6) {
+            return null;
+        }
+        long hero = Card.mask(cards[0]) | Card.mask(cards[1]);
+        return OutsAnalyzer.analyze(hero, mask & ~hero);
+    }
+}
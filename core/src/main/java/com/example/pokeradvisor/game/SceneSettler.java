@@ -0,0 +1,75 @@
+package com.example.pokeradvisor.game;
+
+/**
+ * Decides from per-frame motion scores when a scene has settled and is worth analyzing.
+ * A score above the motion threshold means the scene is changing (cards being dealt, a hand
+ * moving). Once a change has been seen, the scene is settled after its score stays at or below
+ * the settle threshold for a number of consecutive frames; any frame above the settle threshold
+ * starts the count again. A settled scene is reported once and then not again until it changes,
+ * so a static table is never re-analyzed. The first frame counts as a change, so the first scene
+ * is analyzed as soon as it has settled. Call {@link #offer} from one thread only; the thresholds
+ * may be set from any thread.
+ */
+public final class SceneSettler {
+
+    private volatile double motionThreshold = 6.0;
+    private volatile double settleThreshold = 2.0;
+    private volatile int settleFrames = 3;
+
+    private boolean changing = true;
+    private int stableFrames;
+
+    /**
+     * Sets the score that starts a scene change, and the one the scene must stay at or below for
+     * {@code frames} consecutive frames to settle.
+     */
+    public void setThresholds(double motion, double settle, int frames) {
+        if (settle > motion) {
+            throw new IllegalArgumentException("Settle threshold " + settle + " exceeds motion threshold " + motion);
+        }
+        if (frames < 1) {
+            throw new IllegalArgumentException("Settle frames must be positive, got " + frames);
+        }
+        motionThreshold = motion;
+        settleThreshold = settle;
+        settleFrames = frames;
+    }
+
+    /**
+     * Adds the motion score of the next frame.
+     * @return true if the scene settled with this frame and should be analyzed
+     */
+    public boolean offer(double score) {
+        if (score > motionThreshold) {
+            changing = true;
+        }
+        if (score > settleThreshold) {
+            stableFrames = 0;
+            return false;
+        }
+        if (changing && ++stableFrames >= settleFrames) {
+            changing = false;
+            stableFrames = 0;
+            return true;
+        }
+        return false;
+    }
+
+    public double getMotionThreshold() {
+        return motionThreshold;
+    }
+
+    public double getSettleThreshold() {
+        return settleThreshold;
+    }
+
+    public int getSettleFrames() {
+        return settleFrames;
+    }
+
+    // Forgets the current scene, so the next one to settle is analyzed
+    public void reset() {
+        changing = true;
+        stableFrames = 0;
+    }
+}
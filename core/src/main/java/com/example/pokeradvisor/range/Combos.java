@@ -0,0 +1,52 @@
+package com.example.pokeradvisor.range;
+
+import com.example.pokeradvisor.eval.Card;
+
+/**
+ * Dense numbering of the 1326 two-card combinations.
+ * Combo {@code i} holds cards {@link #first(int)} &lt; {@link #second(int)} and has the evaluator
+ * mask {@link #mask(int)}, so blocked combos can be filtered with a single AND.
+ */
+public final class Combos {
+
+    public static final int COUNT = 1326;
+
+    private static final int[] FIRST = new int[COUNT];
+    private static final int[] SECOND = new int[COUNT];
+    private static final long[] MASKS = new long[COUNT];
+    private static final short[] INDEX = new short[Card.COUNT * Card.COUNT];
+
+    static {
+        int combo = 0;
+        for (int first = 0; first < Card.COUNT; first++) {
+            for (int second = first + 1; second < Card.COUNT; second++) {
+                FIRST[combo] = first;
+                SECOND[combo] = second;
+                MASKS[combo] = Card.mask(first) | Card.mask(second);
+                INDEX[first * Card.COUNT + second] = (short) combo;
+                INDEX[second * Card.COUNT + first] = (short) combo;
+                combo++;
+            }
+        }
+    }
+
+    private Combos() {
+    }
+
+    public static int first(int combo) {
+        return FIRST[combo];
+    }
+
+    public static int second(int combo) {
+        return SECOND[combo];
+    }
+
+    public static long mask(int combo) {
+        return MASKS[combo];
+    }
+
+    // Combo of two distinct cards, in either order
+    public static int index(int first, int second) {
+        return INDEX[first * Card.COUNT + second];
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.pokeradvisor.range;
+
+import com.example.pokeradvisor.eval.Card;
+
+/**
+ * Weighted hand range stored as one weight per {@link Combos} index.
+ * Text ranges use the usual shorthand, separated by commas: pairs ("QQ", "88+", "99-66"),
+ * suited and offsuit hands ("AKs", "KTo", "AQ" for both), "+" to raise the kicker up to one
+ * below the top card ("A2s+", "KTo+"), kicker spans ("K9s-K6s") and exact combos ("AhKh").
+ * A ":weight" suffix between 0 and 1 sets the frequency of one token, e.g. "AKo:0.6".
+ */
+public final class Range {
+
+    private static final String RANKS = "23456789TJQKA";
+    private static final int ANY = 0;
+    private static final int SUITED = 1;
+    private static final int OFFSUIT = 2;
+
+    private final float[] weights = new float[Combos.COUNT];
+
+    public static Range parse(String text) {
+        Range range = new Range();
+        for (String token : text.split(",")) {
+            token = token.trim();
+            if (!token.isEmpty()) {
+                range.addToken(token);
+            }
+        }
+        return range;
+    }
+
+    public static Range ofCombo(int first, int second) {
+        Range range = new Range();
+        range.weights[Combos.index(first, second)] = 1;
+        return range;
+    }
+
+    public float weight(int combo) {
+        return weights[combo];
+    }
+
+    public void setWeight(int combo, float weight) {
+        weights[combo] = weight;
+    }
+
+    // Multiplies every weight, e.g. by 0.6 to play the whole range 60% of the time
+    public Range scale(float factor) {
+        for (int combo = 0; combo < Combos.COUNT; combo++) {
+            weights[combo] *= factor;
+        }
+        return this;
+    }
+
+    // Number of combos with a non-zero weight
+    public int size() {
+        int size = 0;
+        for (float weight : weights) {
+            if (weight > 0) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    public double totalWeight() {
+        double total = 0;
+        for (float weight : weights) {
+            total += weight;
+        }
+        return total;
+    }
+
+    /**
+     * Whether every relabelling of suits maps the range onto itself, as for ranges written
+     * without exact combos. Only such ranges give the same equity for suit-isomorphic spots.
+     */
+    public boolean isSuitSymmetric() {
+        // Swapping adjacent suits generates every permutation
+        for (int swap = 0; swap < Card.SUITS - 1; swap++) {
+            for (int combo = 0; combo < Combos.COUNT; combo++) {
+                int first = swapSuit(Combos.first(combo), swap);
+                int second = swapSuit(Combos.second(combo), swap);
+                if (weights[combo] != weights[Combos.index(first, second)]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static int swapSuit(int card, int suit) {
+        int cardSuit = Card.suit(card);
+        if (cardSuit == suit) {
+            return Card.of(Card.rank(card), suit + 1);
+        }
+        if (cardSuit == suit + 1) {
+            return Card.of(Card.rank(card), suit);
+        }
+        return card;
+    }
+
+    private void addToken(String token) {
+        float weight = 1;
+        int colon = token.indexOf(':');
+        if (colon >= 0) {
+            try {
+                weight = Float.parseFloat(token.substring(colon + 1).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Bad weight in range token " + token, e);
+            }
+            if (weight < 0 || weight > 1) {
+                throw new IllegalArgumentException("Weight must be between 0 and 1 in " + token);
+            }
+            token = token.substring(0, colon).trim();
+        }
+
+        if (token.length() == 4) {
+            int first = Card.parse(token.substring(0, 2));
+            int second = Card.parse(token.substring(2));
+            if (first != Card.NONE && second != Card.NONE && first != second) {
+                weights[Combos.index(first, second)] = weight;
+                return;
+            }
+        }
+
+        int dash = token.indexOf('-');
+        if (dash >= 0) {
+            int[] from = parseHand(token.substring(0, dash), token);
+            int[] to = parseHand(token.substring(dash + 1), token);
+            boolean pairs = from[0] == from[1] && to[0] == to[1];
+            if (pairs) {
+                addPairs(Math.min(from[0], to[0]), Math.max(from[0], to[0]), weight);
+            } else if (from[0] == to[0] && from[2] == to[2] && from[0] != from[1] && to[0] != to[1]) {
+                for (int low = Math.min(from[1], to[1]); low <= Math.max(from[1], to[1]); low++) {
+                    addHand(from[0], low, from[2], weight);
+                }
+            } else {
+                throw new IllegalArgumentException("Bad span in range token " + token);
+            }
+        } else if (token.endsWith("+")) {
+            int[] hand = parseHand(token.substring(0, token.length() - 1), token);
+            if (hand[0] == hand[1]) {
+                addPairs(hand[0], Card.RANKS - 1, weight);
+            } else {
+                for (int low = hand[1]; low < hand[0]; low++) {
+                    addHand(hand[0], low, hand[2], weight);
+                }
+            }
+        } else {
+            int[] hand = parseHand(token, token);
+            addHand(hand[0], hand[1], hand[2], weight);
+        }
+    }
+
+    // Returns {high rank, low rank, suitedness} of a hand like "AKs", "T9o", "QQ" or "AK"
+    private static int[] parseHand(String hand, String token) {
+        hand = hand.trim();
+        if (hand.length() < 2 || hand.length() > 3) {
+            throw new IllegalArgumentException("Bad range token " + token);
+        }
+        int first = RANKS.indexOf(hand.charAt(0));
+        int second = RANKS.indexOf(hand.charAt(1));
+        int kind = ANY;
+        if (hand.length() == 3) {
+            char suffix = hand.charAt(2);
+            if (suffix == 's') {
+                kind = SUITED;
+            } else if (suffix == 'o') {
+                kind = OFFSUIT;
+            } else {
+                throw new IllegalArgumentException("Bad range token " + token);
+            }
+        }
+        if (first < 0 || second < 0 || (first == second && kind != ANY)) {
+            throw new IllegalArgumentException("Bad range token " + token);
+        }
+        return new int[]{Math.max(first, second), Math.min(first, second), kind};
+    }
+
+    private void addPairs(int lowRank, int highRank, float weight) {
+        for (int rank = lowRank; rank <= highRank; rank++) {
+            addHand(rank, rank, ANY, weight);
+        }
+    }
+
+    private void addHand(int high, int low, int kind, float weight) {
+        for (int highSuit = 0; highSuit < Card.SUITS; highSuit++) {
+            for (int lowSuit = 0; lowSuit < Card.SUITS; lowSuit++) {
+                boolean suited = highSuit == lowSuit;
+                if (high == low ? lowSuit <= highSuit : (kind == SUITED && !suited) || (kind == OFFSUIT && suited)) {
+                    continue;
+                }
+                weights[Combos.index(Card.of(high, highSuit), Card.of(low, lowSuit))] = weight;
+            }
+        }
+    }
+}
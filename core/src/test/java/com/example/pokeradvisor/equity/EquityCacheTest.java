@@ -0,0 +1,65 @@
+package com.example.pokeradvisor.equity;
+
+import com.example.pokeradvisor.range.Range;
+
+import org.junit.Test;
+
+import static com.example.pokeradvisor.equity.MonteCarloEquityTest.cards;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class EquityCacheTest {
+
+    @Test
+    public void isomorphicSpotsShareKeys() {
+        long key = EquityCache.key(cards("Ah", "Kh"), cards("Qh", "7h", "2c"), 1);
+        assertEquals(key, EquityCache.key(cards("Ks", "As"), cards("2d", "Qs", "7s"), 1));
+        assertNotEquals(key, EquityCache.key(cards("Ah", "Kh"), cards("Qh", "7c", "2c"), 1));
+        assertNotEquals(key, EquityCache.key(cards("Ah", "Kh"), cards("Qh", "7h", "2c"), 2));
+        assertNotEquals(key, EquityCache.rangeKey(cards("Ah", "Kh"), cards("Qh", "7h", "2c"), 1, true));
+    }
+
+    @Test
+    public void rangeKeysKeepSuitsOfAsymmetricRanges() {
+        assertTrue(Range.parse("22+, AKs, KQo:0.5").isSuitSymmetric());
+        assertFalse(Range.parse("AhKh").isSuitSymmetric());
+        assertEquals(EquityCache.rangeKey(cards("Ah", "Kh"), new int[0], 7, true),
+                EquityCache.rangeKey(cards("Ac", "Kc"), new int[0], 7, true));
+        assertNotEquals(EquityCache.rangeKey(cards("Ah", "Kh"), new int[0], 7, false),
+                EquityCache.rangeKey(cards("Ac", "Kc"), new int[0], 7, false));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        EquityCache cache = new EquityCache(2);
+        EquityResult result = new EquityResult(0.5, 0.4, 0.2, 100, 0, true);
+        cache.put(1, result);
+        cache.put(2, result);
+        assertSame(result, cache.get(1));
+        cache.put(3, result);
+
+        assertNull(cache.get(2));
+        assertSame(result, cache.get(1));
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertEquals(2.0 / 3, cache.getHitRate(), 1e-9);
+        assertEquals(2L * EquityCache.BYTES_PER_ENTRY, cache.getEstimatedBytes());
+    }
+
+    @Test
+    public void engineAnswersRepeatedSpotsFromCache() {
+        EquityEngine engine = new EquityEngine(2);
+        try {
+            EquityResult first = engine.calculate(cards("Ah", "Kh"), cards("Qh", "7h", "2c", "9d", "3s"), 1);
+            EquityResult second = engine.calculate(cards("As", "Ks"), cards("Qs", "7s", "2h", "9d", "3c"), 1);
+            assertSame(first, second);
+            assertEquals(1, engine.getCache().getHits());
+        } finally {
+            engine.shutdown();
+        }
+    }
+}
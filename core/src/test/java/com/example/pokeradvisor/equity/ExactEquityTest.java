@@ -0,0 +1,77 @@
+package com.example.pokeradvisor.equity;
+
+import com.example.pokeradvisor.eval.Card;
+
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static com.example.pokeradvisor.equity.MonteCarloEquityTest.cards;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ExactEquityTest {
+
+    private final ExactEquity exact = new ExactEquity(new ForkJoinPool(2));
+
+    @Test
+    public void flopMatchesMonteCarlo() {
+        int[] hole = cards("Ah", "Kd");
+        int[] board = cards("Qh", "7h", "2c");
+        EquityResult exactResult = exact.calculate(hole, board, 1);
+
+        MonteCarloEquity monteCarlo = new MonteCarloEquity(new ForkJoinPool(2));
+        monteCarlo.setSeed(3);
+        monteCarlo.setTargetHalfWidth(0.003);
+        monteCarlo.setTimeBudget(10_000);
+        EquityResult sampled = monteCarlo.calculate(hole, board, 1);
+
+        assertTrue(exactResult.isExact());
+        assertEquals(sampled.getEquity(), exactResult.getEquity(), 0.006);
+    }
+
+    @Test
+    public void countsEveryDealOnTheRiver() {
+        EquityResult result = exact.calculate(cards("9c", "9d"), cards("2h", "5s", "9h", "Jc", "Kd"), 2);
+        assertEquals(ExactEquity.deals(45, 2), result.getSamples());
+    }
+
+    @Test
+    public void isomorphismKeepsWeightsAndValues() {
+        // Hero and the board leave clubs and diamonds interchangeable
+        long hero = Card.mask(Card.parse("As")) | Card.mask(Card.parse("Ks"));
+        long board = Card.mask(Card.parse("2h")) | Card.mask(Card.parse("3h")) | Card.mask(Card.parse("4h"));
+        assertEquals(2, ExactEquity.symmetries(hero, board).length);
+
+        EquityResult reduced = exact.enumerate(hero, board, 1, null);
+        assertEquals(ExactEquity.choose(47, 2) * ExactEquity.choose(45, 2), reduced.getSamples());
+        assertEquals(bruteForceEquity(hero, board), reduced.getEquity(), 1e-12);
+    }
+
+    @Test
+    public void suitlessPreflopSpotHasFullSymmetry() {
+        assertEquals(24, ExactEquity.symmetries(0, 0).length);
+        // Hearts and diamonds swap with each other, clubs and spades likewise
+        assertEquals(4, ExactEquity.symmetries(Card.mask(Card.parse("Ah")) | Card.mask(Card.parse("Ad")), 0).length);
+    }
+
+    @Test
+    public void estimateGrowsWithOpponentsAndUnknownCards() {
+        assertTrue(ExactEquity.estimateWork(3, 1) < ExactEquity.estimateWork(3, 2));
+        assertTrue(ExactEquity.estimateWork(4, 1) < ExactEquity.estimateWork(3, 1));
+        assertTrue(ExactEquity.estimateWork(0, 1) > 1_000_000_000L);
+    }
+
+    // Plain enumeration without any suit reduction
+    private static double bruteForceEquity(long hero, long board) {
+        int[] deck = EquityInputs.remainingDeck(hero | board);
+        SampleStats stats = new SampleStats();
+        ExactEquity.OpponentEnumerator enumerator = new ExactEquity.OpponentEnumerator(1);
+        for (int i = 0; i < deck.length; i++) {
+            for (int j = i + 1; j < deck.length; j++) {
+                enumerator.run(hero, board | Card.mask(deck[i]) | Card.mask(deck[j]), 1, stats);
+            }
+        }
+        return stats.mean();
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.pokeradvisor.equity;
+
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static com.example.pokeradvisor.equity.MonteCarloEquityTest.cards;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IncrementalEquityTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(2);
+    private final ExactEquity exact = new ExactEquity(pool);
+    private final MonteCarloEquity monteCarlo = new MonteCarloEquity(pool);
+    private final IncrementalEquity incremental = new IncrementalEquity(exact, monteCarlo);
+
+    @Test
+    public void enumeratedStreetsMatchFreshEnumeration() {
+        int[] hole = cards("Ah", "Kd");
+        int[][] streets = {
+                cards("Qh", "7h", "2c"),
+                cards("Qh", "7h", "2c", "Th"),
+                cards("Qh", "7h", "2c", "Th", "3s"),
+        };
+        for (int[] board : streets) {
+            EquityResult updated = incremental.update(hole, board, 1);
+            EquityResult fresh = exact.calculate(hole, board, 1);
+            assertTrue(updated.isExact());
+            assertEquals(fresh.getSamples(), updated.getSamples());
+            assertEquals(fresh.getEquity(), updated.getEquity(), 1e-12);
+            assertEquals(fresh.getTie(), updated.getTie(), 1e-12);
+        }
+    }
+
+    @Test
+    public void skippingTheTurnStillReusesTheFlop() {
+        int[] hole = cards("9c", "9d");
+        incremental.update(hole, cards("9h", "5s", "2h"), 1);
+        int[] river = cards("9h", "5s", "2h", "Kh", "Ah");
+        EquityResult updated = incremental.update(hole, river, 1);
+        assertEquals(exact.calculate(hole, river, 1).getEquity(), updated.getEquity(), 1e-12);
+    }
+
+    @Test
+    public void newHandStartsOver() {
+        incremental.update(cards("Ah", "Kd"), cards("Qh", "7h", "2c"), 1);
+        int[] hole = cards("Ac", "As");
+        int[] board = cards("Qh", "7h", "2c", "Th");
+        EquityResult updated = incremental.update(hole, board, 1);
+        assertEquals(exact.calculate(hole, board, 1).getEquity(), updated.getEquity(), 1e-12);
+    }
+
+    @Test
+    public void sampledStreetsAreToppedUp() {
+        incremental.setExactThreshold(0);
+        monteCarlo.setSeed(11);
+        monteCarlo.setTimeBudget(10_000);
+        monteCarlo.setTargetHalfWidth(0.004);
+
+        int[] hole = cards("Jc", "Js");
+        int[] flop = cards("Ad", "8h", "3c");
+        EquityResult flopResult = incremental.update(hole, flop, 2);
+        assertFalse(flopResult.isExact());
+
+        int[] turn = cards("Ad", "8h", "3c", "6s");
+        EquityResult turnResult = incremental.update(hole, turn, 2);
+        assertFalse(turnResult.isExact());
+        assertTrue(1.96 * turnResult.getStandardError() <= 0.004);
+        assertEquals(exact.calculate(hole, turn, 2).getEquity(), turnResult.getEquity(), 0.008);
+    }
+}
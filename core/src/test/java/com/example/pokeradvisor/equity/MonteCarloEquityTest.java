@@ -0,0 +1,66 @@
+package com.example.pokeradvisor.equity;
+
+import com.example.pokeradvisor.eval.Card;
+
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MonteCarloEquityTest {
+
+    private final MonteCarloEquity monteCarlo = newMonteCarlo();
+
+    @Test
+    public void pocketAcesAgainstOneRandomHand() {
+        EquityResult result = monteCarlo.calculate(cards("As", "Ad"), cards(), 1);
+        assertEquals(0.852, result.getEquity(), 0.01);
+        assertTrue(result.getSamples() >= 5_000);
+    }
+
+    @Test
+    public void equityFallsWithMoreOpponents() {
+        double headsUp = monteCarlo.calculate(cards("Kh", "Qh"), cards(), 1).getEquity();
+        double fullRing = monteCarlo.calculate(cards("Kh", "Qh"), cards(), 8).getEquity();
+        assertEquals(0.634, headsUp, 0.01);
+        assertTrue(fullRing < 0.25);
+    }
+
+    @Test
+    public void lockedRiverIsCertain() {
+        EquityResult result = monteCarlo.calculate(cards("As", "Ks"), cards("Qs", "Js", "Ts", "2d", "3c"), 3);
+        assertEquals(1.0, result.getEquity(), 0.0);
+        assertEquals(1.0, result.getWin(), 0.0);
+    }
+
+    @Test
+    public void stopsEarlyOnceConfidenceIsReached() {
+        monteCarlo.setTargetHalfWidth(0.05);
+        EquityResult result = monteCarlo.calculate(cards("7c", "2d"), cards("Ah", "Kh", "9s"), 2);
+        assertTrue(result.getSamples() < 100_000);
+        assertTrue(1.96 * result.getStandardError() <= 0.05);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsDuplicateCards() {
+        monteCarlo.calculate(cards("As", "Ad"), cards("As", "2c", "3c"), 1);
+    }
+
+    private static MonteCarloEquity newMonteCarlo() {
+        MonteCarloEquity monteCarlo = new MonteCarloEquity(new ForkJoinPool(2));
+        monteCarlo.setSeed(1);
+        monteCarlo.setSampleLimits(20_000, 2_000_000);
+        monteCarlo.setTimeBudget(10_000);
+        return monteCarlo;
+    }
+
+    static int[] cards(String... tokens) {
+        int[] cards = new int[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            cards[i] = Card.parse(tokens[i]);
+        }
+        return cards;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.pokeradvisor.equity;
+
+import com.example.pokeradvisor.eval.Card;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static com.example.pokeradvisor.equity.MonteCarloEquityTest.cards;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PreflopTableTest {
+
+    private static final String ASSET = "../app/src/main/assets/preflop_equity.bin";
+
+    @Test
+    public void canonicalHandIndices() {
+        assertEquals("AA", PreflopTable.handName(PreflopTable.handIndex(Card.parse("As"), Card.parse("Ah"))));
+        assertEquals("AKs", PreflopTable.handName(PreflopTable.handIndex(Card.parse("Kd"), Card.parse("Ad"))));
+        assertEquals("72o", PreflopTable.handName(PreflopTable.handIndex(Card.parse("7c"), Card.parse("2d"))));
+    }
+
+    @Test
+    public void shippedTableMatchesKnownEquities() throws IOException {
+        PreflopTable table = new PreflopTable(ByteBuffer.wrap(Files.readAllBytes(Paths.get(ASSET))));
+        int aces = PreflopTable.handIndex(Card.parse("As"), Card.parse("Ah"));
+        int kings = PreflopTable.handIndex(Card.parse("Ks"), Card.parse("Kh"));
+        int sevenDeuce = PreflopTable.handIndex(Card.parse("7c"), Card.parse("2d"));
+
+        assertEquals(EquityInputs.MAX_OPPONENTS, table.getMaxOpponents());
+        assertEquals(0.852, table.vsRandom(aces, 1), 0.005);
+        assertEquals(0.346, table.vsRandom(sevenDeuce, 1), 0.005);
+        assertEquals(0.82, table.headsUp(aces, kings), 0.005);
+        assertEquals(1.0, table.headsUp(aces, kings) + table.headsUp(kings, aces), 1e-4);
+        assertTrue(table.vsRandom(aces, 9) < table.vsRandom(aces, 1));
+        assertEquals(table.vsRandom(aces, 1), table.lookup(cards("Ad", "Ac"), 1).getEquity(), 0.0);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsForeignData() throws IOException {
+        new PreflopTable(ByteBuffer.allocate(PreflopTable.tableSize(1)));
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.pokeradvisor.equity;
+
+import com.example.pokeradvisor.eval.Card;
+import com.example.pokeradvisor.range.Combos;
+import com.example.pokeradvisor.range.Range;
+
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static com.example.pokeradvisor.equity.MonteCarloEquityTest.cards;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RangeEquityTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(2);
+    private final RangeEquity rangeEquity = new RangeEquity(pool);
+
+    @Test
+    public void handVsRandomRangeMatchesEnumeration() {
+        Range random = new Range();
+        for (int combo = 0; combo < Combos.COUNT; combo++) {
+            random.setWeight(combo, 1);
+        }
+        int[] hole = cards("Jh", "Th");
+        int[] board = cards("9h", "8c", "2h");
+
+        EquityResult vsRange = rangeEquity.handVsRange(hole, random, board);
+        EquityResult exact = new ExactEquity(pool).calculate(hole, board, 1);
+        assertTrue(vsRange.isExact());
+        assertEquals(exact.getEquity(), vsRange.getEquity(), 1e-9);
+        assertEquals(exact.getTie(), vsRange.getTie(), 1e-9);
+    }
+
+    @Test
+    public void rangeVsRangeIsZeroSum() {
+        Range hero = Range.parse("22+, A2s+, KTo+").scale(0.6f);
+        Range villain = Range.parse("TT+, AQs+, AKo, KQs:0.5");
+        int[] board = cards("Kd", "7s", "2c");
+
+        double forward = rangeEquity.rangeVsRange(hero, villain, board).getEquity();
+        double backward = rangeEquity.rangeVsRange(villain, hero, board).getEquity();
+        assertEquals(1.0, forward + backward, 1e-9);
+        assertTrue(forward < 0.5);
+    }
+
+    @Test
+    public void sampledPreflopMatchup() {
+        rangeEquity.setSeed(5);
+        rangeEquity.setRunoutLimits(1_176, 20_000);
+        EquityResult result = rangeEquity.rangeVsRange(Range.parse("AA"), Range.parse("KK"), cards());
+        assertEquals(0.82, result.getEquity(), 0.015);
+        assertTrue(!result.isExact() && result.getStandardError() < 0.005);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsRangeBlockedByBoard() {
+        rangeEquity.handVsRange(cards("As", "Ks"), Range.parse("QhQd"), cards("Qh", "2c", "3d"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsDuplicateHoleCards() {
+        rangeEquity.handVsRange(cards("As", "As"), Range.parse("KK"), cards());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidHoleCard() {
+        rangeEquity.handVsRange(new int[] {cards("As")[0], Card.COUNT}, Range.parse("KK"), cards());
+    }
+}
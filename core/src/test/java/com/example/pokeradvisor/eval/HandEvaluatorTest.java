@@ -0,0 +1,103 @@
+package com.example.pokeradvisor.eval;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HandEvaluatorTest {
+
+    @Test
+    public void fiveCardCategoryFrequencies() {
+        long[] counts = new long[HandEvaluator.CATEGORY_COUNT];
+        for (int a = 0; a < 52; a++)
+            for (int b = a + 1; b < 52; b++)
+                for (int c = b + 1; c < 52; c++)
+                    for (int d = c + 1; d < 52; d++)
+                        for (int e = d + 1; e < 52; e++) {
+                            long mask = Card.mask(a) | Card.mask(b) | Card.mask(c) | Card.mask(d) | Card.mask(e);
+                            counts[HandEvaluator.category(HandEvaluator.evaluate(mask))]++;
+                        }
+
+        assertEquals(1302540, counts[HandEvaluator.HIGH_CARD]);
+        assertEquals(1098240, counts[HandEvaluator.PAIR]);
+        assertEquals(123552, counts[HandEvaluator.TWO_PAIR]);
+        assertEquals(54912, counts[HandEvaluator.TRIPS]);
+        assertEquals(10200, counts[HandEvaluator.STRAIGHT]);
+        assertEquals(5108, counts[HandEvaluator.FLUSH]);
+        assertEquals(3744, counts[HandEvaluator.FULL_HOUSE]);
+        assertEquals(624, counts[HandEvaluator.QUADS]);
+        assertEquals(40, counts[HandEvaluator.STRAIGHT_FLUSH]);
+    }
+
+    @Test
+    public void sevenCardValueIsBestFiveCardSubset() {
+        Random random = new Random(42);
+        int[] cards = new int[7];
+        for (int trial = 0; trial < 100_000; trial++) {
+            long mask = randomHand(random, cards);
+            int best = 0;
+            for (int skip1 = 0; skip1 < 7; skip1++) {
+                for (int skip2 = skip1 + 1; skip2 < 7; skip2++) {
+                    long five = mask & ~Card.mask(cards[skip1]) & ~Card.mask(cards[skip2]);
+                    best = Math.max(best, HandEvaluator.evaluate(five));
+                }
+            }
+            assertEquals(best, HandEvaluator.evaluate(mask));
+        }
+    }
+
+    @Test
+    public void ordersKnownHands() {
+        assertTrue(value("As", "Ks", "Qs", "Js", "Ts") > value("9h", "9d", "9c", "9s", "2d"));
+        assertTrue(value("5d", "4c", "3h", "2s", "Ad") < value("6d", "5c", "4h", "3s", "2d"));
+        assertTrue(value("Ah", "Ad", "Kc", "Ks", "2d") > value("Ah", "Ad", "Qc", "Qs", "Kd"));
+        assertTrue(value("Kh", "Kd", "Kc", "2s", "2d") > value("Qh", "Qd", "Qc", "As", "Ad"));
+        assertEquals(value("Ah", "Kh", "Qd", "Jc", "9s"), value("Ad", "Kc", "Qh", "Js", "9c"));
+        assertEquals(HandEvaluator.STRAIGHT, HandEvaluator.category(value("5d", "4c", "3h", "2s", "Ad", "Ks", "Kd")));
+        assertEquals(HandEvaluator.TWO_PAIR, HandEvaluator.category(value("5d", "5c", "3h", "3s", "Ad", "Ac", "Kd")));
+    }
+
+    @Test
+    public void randomHandChecksum() {
+        // Throughput is measured by HandEvaluatorBenchmark in the benchmarks module
+        Random random = new Random(7);
+        int[] cards = new int[7];
+        long[] hands = new long[1 << 16];
+        for (int i = 0; i < hands.length; i++) {
+            hands[i] = randomHand(random, cards);
+        }
+        assertEquals(141_056_100_930L, evaluateAll(hands));
+    }
+
+    private static long evaluateAll(long[] hands) {
+        long sum = 0;
+        for (long hand : hands) {
+            sum += HandEvaluator.evaluate(hand);
+        }
+        return sum;
+    }
+
+    private static long randomHand(Random random, int[] cards) {
+        long mask = 0;
+        for (int i = 0; i < cards.length; i++) {
+            int card;
+            do {
+                card = random.nextInt(Card.COUNT);
+            } while ((mask & Card.mask(card)) != 0);
+            cards[i] = card;
+            mask |= Card.mask(card);
+        }
+        return mask;
+    }
+
+    private static int value(String... tokens) {
+        long mask = 0;
+        for (String token : tokens) {
+            mask |= Card.mask(Card.parse(token));
+        }
+        return HandEvaluator.evaluate(mask);
+    }
+}
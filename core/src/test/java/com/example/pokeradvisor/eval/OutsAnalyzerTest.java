@@ -0,0 +1,44 @@
+package com.example.pokeradvisor.eval;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class OutsAnalyzerTest {
+
+    @Test
+    public void countsFlushDrawOuts() {
+        OutsAnalyzer.Outs outs = OutsAnalyzer.analyze(mask("Ah", "Kh"), mask("Qh", "7h", "2c"));
+        assertEquals(HandEvaluator.HIGH_CARD, outs.getCategory());
+        assertEquals(9, Long.bitCount(outs.outs(HandEvaluator.FLUSH)));
+        // Nine hearts, three aces and three kings; queens, sevens and deuces only pair the board
+        assertEquals(15, outs.count());
+        // At least one more heart in two cards: 1 - C(38, 2) / C(47, 2) = 0.3497
+        assertTrue(outs.improveProbability(HandEvaluator.FLUSH) > 0.34);
+    }
+
+    @Test
+    public void suitedOutsTaintStraightDraws() {
+        // Open-ended straight draw: the eights and kings complete it, a third spade gives a flush threat
+        OutsAnalyzer.Outs outs = OutsAnalyzer.analyze(mask("Jc", "Td"), mask("9s", "Qs", "3h", "2d"));
+        long straightOuts = outs.outs(HandEvaluator.STRAIGHT);
+        assertEquals(8, Long.bitCount(straightOuts));
+        assertEquals(mask("8s", "Ks"), straightOuts & outs.dirtyOuts());
+        assertEquals(6, Long.bitCount(straightOuts & outs.cleanOuts()));
+    }
+
+    @Test
+    public void turnProbabilitiesMatchOutCount() {
+        OutsAnalyzer.Outs outs = OutsAnalyzer.analyze(mask("Ah", "Kh"), mask("Qh", "7h", "2c", "3d"));
+        assertEquals(outs.count() / 46.0, outs.improveProbability(), 1e-9);
+    }
+
+    private static long mask(String... tokens) {
+        long mask = 0;
+        for (String token : tokens) {
+            mask |= Card.mask(Card.parse(token));
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.pokeradvisor.game;
+
+import com.example.pokeradvisor.eval.Card;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CardVoterTest {
+
+    @Test
+    public void settlesAfterEnoughVotes() {
+        CardVoter voter = new CardVoter(5, 3);
+        assertFalse(voter.vote(hand("Ah", "Kd"), new float[]{0.9f, 0.9f}));
+        assertFalse(voter.vote(hand("Ah", "Kd"), new float[]{0.9f, 0.9f}));
+        assertTrue(voter.vote(hand("Ah", "Kd"), new float[]{0.9f, 0.9f}));
+        assertEquals("Ah, Kd", voter.getStableHand().cardsText());
+    }
+
+    @Test
+    public void settledOnlyWhenLastFrameAgrees() {
+        CardVoter voter = new CardVoter(5, 3);
+        voter.vote(hand("Ah", "Kd"), new float[]{0.9f, 0.9f});
+        assertFalse(voter.isSettled());
+        voter.vote(hand("Ah", "Kd"), new float[]{0.9f, 0.9f});
+        voter.vote(hand("Ah", "Kd"), new float[]{0.9f, 0.9f});
+        assertTrue(voter.isSettled());
+    }
+
+    @Test
+    public void ignoresSingleMisreads() {
+        CardVoter voter = new CardVoter(5, 3);
+        for (int i = 0; i < 3; i++) {
+            voter.vote(hand("Ah", "Kd"), new float[]{0.8f, 0.8f});
+        }
+        assertFalse(voter.vote(hand("Ah", "Qd"), new float[]{0.8f, 0.95f}));
+        assertFalse(voter.vote(hand("Ah"), new float[]{0.8f}));
+        assertEquals(Card.parse("Kd"), voter.getStableHand().card(1));
+    }
+
+    @Test
+    public void followsLastingChanges() {
+        CardVoter voter = new CardVoter(5, 3);
+        for (int i = 0; i < 5; i++) {
+            voter.vote(hand("Ah", "Kd"), new float[]{0.8f, 0.8f});
+        }
+        boolean changed = false;
+        for (int i = 0; i < 3; i++) {
+            changed |= voter.vote(hand("Ah", "Kd", "7c", "7s", "2h"), new float[]{0.8f, 0.8f, 0.8f, 0.8f, 0.8f});
+        }
+        assertTrue(changed);
+        assertEquals(5, voter.getStableHand().size());
+    }
+
+    private static HandState hand(String... tokens) {
+        HandState hand = new HandState();
+        for (String token : tokens) {
+            hand.add(token);
+        }
+        return hand;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.pokeradvisor.game;
+
+import com.example.pokeradvisor.eval.Card;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class HandStateTest {
+
+    @Test
+    public void splitsHoleAndBoard() {
+        HandState hand = new HandState();
+        for (String token : new String[]{"Ah", "Kh", "Qh", "Jh", "10h"}) {
+            assertTrue(hand.add(token));
+        }
+        assertArrayEquals(new int[]{Card.parse("Ah"), Card.parse("Kh")}, hand.hole());
+        assertArrayEquals(new int[]{Card.parse("Qh"), Card.parse("Jh"), Card.parse("Th")}, hand.board());
+        assertEquals("Straight flush", hand.handName());
+    }
+
+    @Test
+    public void ignoresDuplicatesAndNonCards() {
+        HandState hand = new HandState();
+        assertFalse(hand.add("Pot"));
+        hand.add("Ah");
+        hand.add("Ah");
+        assertEquals(1, hand.size());
+        assertFalse(hand.hasHole());
+        assertEquals(0, hand.board().length);
+        assertNull(hand.handName());
+    }
+
+    @Test
+    public void keepsAtMostSevenCards() {
+        HandState hand = new HandState();
+        for (int card = 0; card < 10; card++) {
+            hand.add(card);
+        }
+        assertEquals(HandState.MAX_CARDS, hand.size());
+        assertEquals(5, hand.board().length);
+        hand.clear();
+        assertEquals(0, hand.mask());
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.pokeradvisor.game;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SceneSettlerTest {
+
+    @Test
+    public void firstSceneIsAnalyzedOnceSettled() {
+        SceneSettler settler = new SceneSettler();
+        settler.setThresholds(6, 2, 3);
+        assertFalse(settler.offer(Double.MAX_VALUE));
+        assertFalse(settler.offer(0));
+        assertFalse(settler.offer(0));
+        assertTrue(settler.offer(0));
+    }
+
+    @Test
+    public void staticSceneIsAnalyzedOnlyOnce() {
+        SceneSettler settler = new SceneSettler();
+        settler.setThresholds(6, 2, 2);
+        assertEquals(1, analyzed(settler, 0, 0, 0, 0, 0, 0, 0, 0));
+    }
+
+    @Test
+    public void moderateMotionRestartsTheCount() {
+        SceneSettler settler = new SceneSettler();
+        settler.setThresholds(6, 2, 3);
+        settler.offer(10);
+        settler.offer(1);
+        settler.offer(1);
+        // Between the thresholds: not a new change, but not settled either
+        assertFalse(settler.offer(4));
+        assertFalse(settler.offer(1));
+        assertFalse(settler.offer(1));
+        assertTrue(settler.offer(1));
+    }
+
+    @Test
+    public void moderateMotionAloneStartsNoChange() {
+        SceneSettler settler = new SceneSettler();
+        settler.setThresholds(6, 2, 1);
+        assertTrue(settler.offer(0));
+        assertEquals(0, analyzed(settler, 4, 1, 4, 1, 1));
+    }
+
+    @Test
+    public void newChangeIsAnalyzedAgain() {
+        SceneSettler settler = new SceneSettler();
+        settler.setThresholds(6, 2, 2);
+        assertEquals(2, analyzed(settler, 0, 0, 0, 20, 15, 0, 0, 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsSettleAboveMotion() {
+        new SceneSettler().setThresholds(2, 6, 3);
+    }
+
+    private static int analyzed(SceneSettler settler, double... scores) {
+        int count = 0;
+        for (double score : scores) {
+            if (settler.offer(score)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
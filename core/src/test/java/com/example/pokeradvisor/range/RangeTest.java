@@ -0,0 +1,47 @@
+package com.example.pokeradvisor.range;
+
+import com.example.pokeradvisor.eval.Card;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class RangeTest {
+
+    @Test
+    public void parsesShorthand() {
+        assertEquals(78, Range.parse("22+").size());
+        assertEquals(48, Range.parse("A2s+").size());
+        assertEquals(36, Range.parse("KTo+").size());
+        assertEquals(16, Range.parse("AK").size());
+        assertEquals(24, Range.parse("99-66").size());
+        assertEquals(16, Range.parse("K9s-K6s").size());
+        assertEquals(1, Range.parse("AhKh").size());
+        assertEquals(78 + 48 + 36, Range.parse("22+, A2s+, KTo+").size());
+    }
+
+    @Test
+    public void appliesWeights() {
+        Range range = Range.parse("AKs, AKo:0.5");
+        assertEquals(4 + 12 * 0.5, range.totalWeight(), 1e-6);
+        assertEquals(0.5f, range.weight(Combos.index(Card.parse("Ah"), Card.parse("Kd"))), 0f);
+        assertEquals(0.6 * 78, Range.parse("22+").scale(0.6f).totalWeight(), 1e-4);
+    }
+
+    @Test
+    public void comboIndicesRoundTrip() {
+        for (int combo = 0; combo < Combos.COUNT; combo++) {
+            assertEquals(combo, Combos.index(Combos.second(combo), Combos.first(combo)));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsSuitedPairs() {
+        Range.parse("QQs");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMixedSpans() {
+        Range.parse("AKs-QJs");
+    }
+}
@@ -13,4 +13,6 @@ dependencyResolutionManagement {
     }
 }
 rootProject.name = "PokerAdvisor"
-include(":app")
\ No newline at end of file
+include(":app")
+include(":core")
+include(":benchmarks")
\ No newline at end of file